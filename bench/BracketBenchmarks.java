@@ -0,0 +1,210 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * Benchmarks for the hot paths of the simulator: simulate, scoreBracket, live scoring, the Bracket tree edits,
+ * the sized TournamentTree engine, the mapped pool file, loading TournamentInfo and .ser round trips,
+ * each run at several pool sizes.
+ *
+ * Follows the JMH recipe of warmup iterations followed by timed measurement iterations, with every
+ * result folded into a sink so the JIT can't drop the work. JMH itself can't be used here because it
+ * refuses benchmark classes in the default package, and every class in this project lives there
+ * (saved .ser files record the unqualified class name, so moving them would break existing brackets).
+ *
+ * Run with: mvn -Pbench compile exec:java -Dexec.args="100 1000 10000"
+ * Timing is set with -Dbench.warmups, -Dbench.iterations and -Dbench.iterationMillis.
+ */
+public class BracketBenchmarks {
+    private static final int WARMUPS = Integer.getInteger("bench.warmups", 3);
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 5);
+    private static final long ITERATION_NANOS = Long.getLong("bench.iterationMillis", 1000L) * 1000000L;
+
+    /** Results are folded in here so the work being timed is never dead code */
+    private static volatile long sink;
+
+    /** One benchmarked operation; returns something derived from its work */
+    private interface Operation {
+        long run() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] poolSizes = {100, 1000, 10000};
+        if (args.length > 0) {
+            poolSizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                poolSizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        TournamentInfo info = new TournamentInfo();
+        Bracket starting = new Bracket(info.loadStartingBracket());
+        Bracket master = new Bracket(starting);
+        info.simulate(master);
+
+        System.out.printf("%-36s %8s %14s %12s%n", "Benchmark", "Pool", "ns/op", "+/- ns");
+
+        bench("TeamRegistry.load", 1, () -> TeamRegistry.load().getTeamTable().size());
+        // the registry is loaded once and shared, so this is the cost of a lookup through a cached one
+        bench("TournamentInfo.new, cached registry", 1, () -> new TournamentInfo().getTeam("Villanova").getRanking());
+        bench("TournamentInfo.simulate", 1, () -> {
+            Bracket b = new Bracket(starting);
+            info.simulate(b);
+            return b.getTeamId(0);
+        });
+        TournamentInfo closedForm = new TournamentInfo();
+        closedForm.setClosedFormScores(true);
+        bench("TournamentInfo.simulate closed form", 1, () -> {
+            Bracket b = new Bracket(starting);
+            closedForm.simulate(b);
+            return b.getTeamId(0);
+        });
+        bench("Bracket copy", 1, () -> new Bracket(master).getTeamId(0));
+        bench("Bracket copy+first change", 1, () -> {
+            Bracket b = new Bracket(master);
+            b.removeAbove(1);
+            return b.getTeamId(0);
+        });
+        bench("Bracket.isComplete", 1, () -> master.isComplete() ? 1 : 0);
+        bench("Bracket.resetSubtree+removeAbove", 1, () -> {
+            Bracket b = new Bracket(master);
+            b.resetSubtree(3);
+            b.removeAbove(70);
+            return b.getTeamId(1);
+        });
+        // the same tree engine at two sizes; time per game should hardly change
+        for (int teams : new int[] {64, 1024}) {
+            BracketLayout layout = BracketLayout.of(teams);
+            double[] evenOdds = new double[teams * teams];
+            java.util.Arrays.fill(evenOdds, 0.5);
+            java.util.SplittableRandom rng = new java.util.SplittableRandom(1);
+            TournamentTree results = new TournamentTree(layout);
+            results.simulate(evenOdds, rng);
+            bench("TournamentTree simulate+score " + teams, 1, () -> {
+                TournamentTree picks = new TournamentTree(layout);
+                picks.simulate(evenOdds, rng);
+                return picks.score(results);
+            });
+        }
+
+        for (int size : poolSizes) {
+            ArrayList<Bracket> pool = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                Bracket b = new Bracket(starting, "player" + i);
+                b.setPassword("pw" + i);
+                info.simulate(b);
+                pool.add(b);
+            }
+
+            bench("Bracket.scoreBracket (whole pool)", size, () -> {
+                long total = 0;
+                for (Bracket b : pool) {
+                    total += b.scoreBracket(master);
+                }
+                return total;
+            });
+            bench("BracketColumns.scoreAll", size, () -> {
+                int[] scores = new BracketColumns(starting.getTeamTable(), pool).scoreAll(master);
+                return scores[scores.length - 1];
+            });
+            long[] encoded = new long[size];
+            for (int i = 0; i < size; i++) {
+                encoded[i] = BracketCodec.encode(pool.get(i));
+            }
+            long encodedMaster = BracketCodec.encode(master);
+            bench("BracketCodec.scoreAll", size, () -> {
+                int[] scores = BracketCodec.scoreAll(encoded, encodedMaster);
+                return scores[scores.length - 1];
+            });
+            java.io.File poolFile = java.io.File.createTempFile("bench", ".mmpf");
+            poolFile.deleteOnExit();
+            try (PoolFile.Writer writer = new PoolFile.Writer(poolFile, starting)) {
+                for (int i = 0; i < size; i++) {
+                    writer.add(pool.get(i).getPlayerName(), encoded[i]);
+                }
+            }
+            bench("PoolFile open+scoreAll", size, () -> {
+                try (PoolFile mapped = new PoolFile(poolFile, starting)) {
+                    int[] scores = mapped.scoreAll(master);
+                    return scores[scores.length - 1];
+                }
+            });
+            BracketColumns columns = new BracketColumns(starting.getTeamTable(), pool);
+            bench("LiveLeaderboard.applyResult x63", size, () -> {
+                LiveLeaderboard live = new LiveLeaderboard(columns, starting);
+                for (int game = 62; game >= 0; game--) {
+                    live.applyResult(game, master.getTeamName(game));
+                }
+                return live.getRank(0);
+            });
+            byte[][] serialized = new byte[size][];
+            bench(".ser serialize (whole pool)", size, () -> {
+                long total = 0;
+                for (int i = 0; i < size; i++) {
+                    serialized[i] = serialize(pool.get(i));
+                    total += serialized[i].length;
+                }
+                return total;
+            });
+            bench(".ser deserialize (whole pool)", size, () -> {
+                long total = 0;
+                for (byte[] bytes : serialized) {
+                    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                        total += ((Bracket) in.readObject()).getTeamId(0);
+                    }
+                }
+                return total;
+            });
+        }
+    }
+
+    private static byte[] serialize(Bracket b) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(b);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Runs the warmup and measurement iterations of one benchmark and prints its mean time per call.
+     */
+    private static void bench(String name, int poolSize, Operation op) throws Exception {
+        for (int i = 0; i < WARMUPS; i++) {
+            iteration(op);
+        }
+        double[] nanosPerOp = new double[ITERATIONS];
+        double mean = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            nanosPerOp[i] = iteration(op);
+            mean += nanosPerOp[i] / ITERATIONS;
+        }
+        double variance = 0;
+        for (double x : nanosPerOp) {
+            variance += (x - mean) * (x - mean) / Math.max(1, ITERATIONS - 1);
+        }
+        System.out.printf(Locale.ROOT, "%-36s %8d %14.1f %12.1f%n", name, poolSize, mean, Math.sqrt(variance));
+    }
+
+    /**
+     * Calls the operation repeatedly for one iteration's worth of time.
+     * @return average nanoseconds per call
+     */
+    private static double iteration(Operation op) throws Exception {
+        long calls = 0;
+        long result = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            result += op.run();
+            calls++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < ITERATION_NANOS);
+        sink += result;
+        return (double) elapsed / calls;
+    }
+}
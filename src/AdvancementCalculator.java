@@ -0,0 +1,150 @@
+/**
+ * Exact advancement probabilities computed bottom-up over the bracket tree instead of by simulation.
+ * Uses the heap layout described in the README: the children of node n are 2n + 1 and 2n + 2, and the
+ * 64 starting teams sit at nodes 63 through 126. Each node gets the probability that every team wins
+ * its way up to that node, worked out from its two children and a pairwise win-probability matrix.
+ */
+public class AdvancementCalculator {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_TEAMS = 64;
+    private static final int NUM_OF_NODES = 127;
+
+    private AdvancementCalculator() {
+    }
+
+    /**
+     * Probability of each team reaching each node of the tree.
+     * @param winProbability winProbability[a][b] = chance team a beats team b, teams in starting bracket order
+     * @return reach[node][team]; zero for teams that can't reach the node
+     */
+    public static double[][] reachProbabilities(double[][] winProbability) {
+        double[][] reach = new double[NUM_OF_NODES][NUM_OF_TEAMS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            reach[NUM_OF_GAMES + t][t] = 1.0;
+        }
+        for (int node = NUM_OF_GAMES - 1; node >= 0; node--) {
+            int left = 2 * node + 1;
+            int right = 2 * node + 2;
+            /* teams under a node are a contiguous run of the starting bracket */
+            int width = subtreeWidth(left);
+            int leftFirst = firstTeam(left);
+            int rightFirst = leftFirst + width;
+            advance(reach[node], reach[left], reach[right], leftFirst, rightFirst, width, winProbability);
+            advance(reach[node], reach[right], reach[left], rightFirst, leftFirst, width, winProbability);
+        }
+        return reach;
+    }
+
+    /**
+     * Per-team, per-round probabilities, comparable to {@link TournamentSimulator#simulateBatch(long)}.
+     * @param teamNames team names in starting bracket order
+     * @param winProbability winProbability[a][b] = chance team a beats team b
+     * @return exact advancement odds
+     */
+    public static AdvancementOdds compute(String[] teamNames, double[][] winProbability) {
+        double[][] reach = reachProbabilities(winProbability);
+        double[][] probabilities = new double[NUM_OF_TEAMS][AdvancementOdds.NUM_OF_ROUNDS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            for (int node = NUM_OF_GAMES + t; ; node = (node - 1) / 2) {
+                probabilities[t][AdvancementOdds.roundOf(node)] = reach[node][t];
+                if (node == 0) {
+                    break;
+                }
+            }
+        }
+        return new AdvancementOdds(teamNames.clone(), probabilities);
+    }
+
+    /**
+     * Fills in the chance that each team from one side wins the game at the parent node:
+     * reaching the side's child times beating whoever comes up the other side.
+     */
+    private static void advance(double[] parent, double[] side, double[] other, int sideFirst, int otherFirst,
+                                int width, double[][] winProbability) {
+        for (int a = sideFirst; a < sideFirst + width; a++) {
+            if (side[a] == 0) {
+                continue;
+            }
+            double beatsOpponent = 0;
+            for (int b = otherFirst; b < otherFirst + width; b++) {
+                beatsOpponent += other[b] * winProbability[a][b];
+            }
+            parent[a] = side[a] * beatsOpponent;
+        }
+    }
+
+    /**
+     * @return number of starting teams under a node
+     */
+    static int subtreeWidth(int node) {
+        return NUM_OF_TEAMS >> (AdvancementOdds.NUM_OF_ROUNDS - 1 - AdvancementOdds.roundOf(node));
+    }
+
+    /**
+     * @return starting bracket index of the leftmost team under a node
+     */
+    static int firstTeam(int node) {
+        int width = subtreeWidth(node);
+        int leaf = node;
+        for (int w = width; w > 1; w /= 2) {
+            leaf = 2 * leaf + 1;
+        }
+        return leaf - NUM_OF_GAMES;
+    }
+
+    /**
+     * Exact pairwise win probabilities under the score model of {@link TournamentInfo#generateScore(int, double)},
+     * including its rule of replaying ties.
+     * @param rankings seed of each team in starting bracket order
+     * @return winProbability[a][b] = chance team a beats team b
+     */
+    public static double[][] rankingWinProbabilities(int[] rankings) {
+        double[][] distribution = new double[17][];
+        double[][] winProbability = new double[rankings.length][rankings.length];
+        for (int a = 0; a < rankings.length; a++) {
+            for (int b = 0; b < rankings.length; b++) {
+                if (a == b) {
+                    winProbability[a][b] = 0.5;
+                    continue;
+                }
+                double[] scoresA = scoreDistribution(distribution, rankings[a]);
+                double[] scoresB = scoreDistribution(distribution, rankings[b]);
+                double win = 0;
+                double tie = 0;
+                double belowB = 0; // chance b scores less than s
+                for (int s = 0; s < scoresA.length; s++) {
+                    double exactlyB = s < scoresB.length ? scoresB[s] : 0;
+                    win += scoresA[s] * belowB;
+                    tie += scoresA[s] * exactlyB;
+                    belowB += exactlyB;
+                }
+                winProbability[a][b] = win / (1 - tie);
+            }
+        }
+        return winProbability;
+    }
+
+    /**
+     * Probability of each final score for a team of the given ranking, cached per ranking.
+     * generateScore is increasing in the random draw, so P(score <= s) is the draw below which the
+     * formula stays under s + 1.
+     */
+    private static double[] scoreDistribution(double[][] cache, int ranking) {
+        if (ranking >= 0 && ranking < cache.length && cache[ranking] != null) {
+            return cache[ranking];
+        }
+        double weight = 0.7 + (ranking * 0.02);
+        int max = TournamentInfo.generateScore(ranking, Math.nextDown(1.0));
+        double[] pmf = new double[max + 1];
+        double below = 0;
+        for (int s = TournamentInfo.generateScore(ranking, 0); s <= max; s++) {
+            double cumulative = Math.min(1.0, Math.max(0.0, ((s + 1) / weight - 75) / (61 * weight)));
+            pmf[s] = cumulative - below;
+            below = cumulative;
+        }
+        if (ranking >= 0 && ranking < cache.length) {
+            cache[ranking] = pmf;
+        }
+        return pmf;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Per-team, per-round advancement probabilities for a 64 team tournament.
+ * Round 0 is the starting field (always 1.0) and round 6 is winning the championship,
+ * so round r matches the level of the bracket tree whose nodes are 2^(6-r) - 1 through 2^(7-r) - 2.
+ */
+public class AdvancementOdds {
+    /** Number of rounds tracked per team, from the starting field up to champion */
+    public static final int NUM_OF_ROUNDS = 7;
+    /** Display names of the rounds, indexed by round */
+    public static final String[] ROUND_NAMES = {"Ro64", "Ro32", "Sweet 16", "Elite 8", "Final Four", "Final", "Champion"};
+
+    /** Team names in starting bracket order (team t starts at index 63 + t) */
+    private final String[] teamNames;
+    /** probabilities[team][round] */
+    private final double[][] probabilities;
+
+    /**
+     * @param teamNames team names in starting bracket order
+     * @param probabilities probability that each team reaches each round, indexed [team][round]
+     */
+    public AdvancementOdds(String[] teamNames, double[][] probabilities) {
+        this.teamNames = teamNames;
+        this.probabilities = probabilities;
+    }
+
+    /**
+     * Maps a node of the 127 element bracket tree to the round its winner has reached.
+     * @param node index in the bracket tree
+     * @return round, 0 for the starting leaves up to 6 for the root
+     */
+    public static int roundOf(int node) {
+        return NUM_OF_ROUNDS - 1 - (31 - Integer.numberOfLeadingZeros(node + 1));
+    }
+
+    public int getTeamCount() {
+        return teamNames.length;
+    }
+
+    public String getTeamName(int team) {
+        return teamNames[team];
+    }
+
+    /**
+     * @param team index of the team in starting bracket order
+     * @param round round number, see {@link #ROUND_NAMES}
+     * @return probability that the team reaches the round
+     */
+    public double getProbability(int team, int round) {
+        return probabilities[team][round];
+    }
+
+    /**
+     * Looks a team up by name.
+     * @param teamName name of the team as it appears in initialMatches.txt
+     * @param round round number, see {@link #ROUND_NAMES}
+     * @return probability that the team reaches the round, or 0 if the team is not in the tournament
+     */
+    public double getProbability(String teamName, int round) {
+        for (int t = 0; t < teamNames.length; t++) {
+            if (teamNames[t].equals(teamName)) {
+                return probabilities[t][round];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Largest absolute difference between any two matching entries, handy for comparing estimates.
+     * @param other odds for the same teams
+     * @return the maximum absolute difference
+     */
+    public double maxDifference(AdvancementOdds other) {
+        double max = 0;
+        for (int t = 0; t < teamNames.length; t++) {
+            for (int r = 0; r < NUM_OF_ROUNDS; r++) {
+                max = Math.max(max, Math.abs(probabilities[t][r] - other.probabilities[t][r]));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return one line per team with its probability of reaching each round
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-20s", "Team"));
+        for (int r = 1; r < NUM_OF_ROUNDS; r++) {
+            sb.append(String.format("%11s", ROUND_NAMES[r]));
+        }
+        sb.append('\n');
+        for (int t = 0; t < teamNames.length; t++) {
+            sb.append(String.format("%-20s", teamNames[t]));
+            for (int r = 1; r < NUM_OF_ROUNDS; r++) {
+                sb.append(String.format("%11.4f", probabilities[t][r]));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -1,32 +1,86 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.io.Serializable; 
 
 /**
  * Class representing a sports bracket like those in March Madness.
- * A bracket contains a list of strings (64 in total) representing participating teams.
+ * A bracket contains 127 slots, one per node of the tournament tree, each holding the id of a team
+ * from a shared {@link TeamTable}; {@link #getBracket()} presents them as team names.
  * Each bracket is linked with its own user account.
  *
+ * Copies are cheap: the 64 first round slots are fixed once a bracket is built, so every bracket with
+ * the same starting teams shares one array of them, and a copy shares the 63 game slots with the
+ * bracket it was made from until either of them changes one. Only then are the game slots copied.
+ * A bracket that is being copied must not be changed at the same time from another thread.
+ *
  * @author Matt, Dan, Hillary
  * @since 5/1/2017
  */
 public class Bracket implements Serializable {
     /* results of previous simulations are not saved when this object is serialized(exported to file) */
-    private final transient int[] teamScores = new int[NUM_OF_TEAM_SCORES];
-    private final static int NUM_OF_TEAM_SCORES = 127;
+    /** Created the first time a score is set */
+    private transient int[] teamScores;
+    /** Shape of the tournament every bracket holds */
+    private final static BracketLayout LAYOUT = BracketLayout.STANDARD;
+    private final static int NUM_OF_TEAM_SCORES = LAYOUT.getNodes();
+    /** Number of games in the tournament; slots below this index hold winners, the rest hold the starting teams */
+    private final static int NUM_OF_GAMES = LAYOUT.getGames();
+    /** Regions of the draw; the final four games and the region winners sit above them */
+    private final static int NUM_OF_REGIONS = 4;
+    /** Points awarded for a correct pick at each game slot, 32 for the winner down to 1 for the round of 64 */
+    private final static int[] POINTS = new int[NUM_OF_GAMES];
     public static final long serialVersionUID = 5609181678399742983L;
-    private final ArrayList<String> bracket;
+    /* Serialized form is unchanged from when the slots were an ArrayList<String>, so old .ser files still load */
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("bracket", ArrayList.class),
+            new ObjectStreamField("playerName", String.class),
+            new ObjectStreamField("password", String.class)
+    };
+    /**
+     * What reading a .ser bracket may create, since the files can come from anyone: the classes of the
+     * serialized form and nothing else, nested no deeper and no bigger than one list of 127 names needs.
+     * Arrays are checked by their element type, so the Object[] inside the ArrayList needs java.lang.Object.
+     */
+    static final ObjectInputFilter SERIAL_FILTER = ObjectInputFilter.Config.createFilter(
+            "maxdepth=4;maxarray=" + NUM_OF_TEAM_SCORES + ";maxrefs=512;maxbytes=65536;"
+                    + "Bracket;java.util.ArrayList;java.lang.String;java.lang.Object;!*");
+    /** First round slots of the most recent bracket built from names or ids, shared while they keep matching */
+    private static volatile byte[] lastLeaves;
+
+    /** Team ids of the game slots 0 to 62, TeamTable.EMPTY where no team has been picked */
+    private transient byte[] games;
+    /** Team ids of the first round slots 63 to 126 */
+    private transient byte[] leaves;
+    /** True while games, or leaves, may be shared with another bracket and has to be copied before a change */
+    private transient boolean gamesShared;
+    private transient boolean leavesShared;
+    /** Resolves the ids in bracket to team names; shared by all brackets built from the same teams */
+    private transient TeamTable teams;
     private String playerName;
     private String password;
 
+    static {
+        for (int i = 0; i < NUM_OF_GAMES; i++) {
+            POINTS[i] = LAYOUT.pointsFor(i);
+        }
+    }
+
     /**
      * Creates a new bracket containing the teams specified in the list passed in as an argument.
      * @param teams A list containing the 64 teams competing in the tournament.
      */
     public Bracket(ArrayList<String> teams) {
-        bracket = new ArrayList<>(teams);
-        while (bracket.size() < NUM_OF_TEAM_SCORES) {
-            bracket.add(0,"");
-        }
+        this(teams, null);
     }
 
     /**
@@ -34,7 +88,12 @@ public class Bracket implements Serializable {
      * @param starting master bracket pre-simulation
      */
     public Bracket(Bracket starting) {
-        bracket = new ArrayList<>(starting.getBracket());
+        games = starting.games;
+        leaves = starting.leaves;
+        starting.gamesShared = true;
+        gamesShared = true;
+        leavesShared = true;
+        teams = starting.teams;
     }
 
     /**
@@ -44,7 +103,42 @@ public class Bracket implements Serializable {
      * @param user name of the new bracket owner
      */
     public Bracket(Bracket starting, String user) {
-        bracket = new ArrayList<>(starting.getBracket());
+        this(starting);
+        playerName = user;
+    }
+
+    /**
+     * Builds the slots from a list of names, padding the front with empty slots up to the full tree.
+     * @param slots the names to place at the end of the tree
+     * @param user name of the bracket owner, may be null
+     */
+    private Bracket(List<String> slots, String user) {
+        if (slots.size() > NUM_OF_TEAM_SCORES) {
+            throw new IllegalArgumentException("A bracket holds at most " + NUM_OF_TEAM_SCORES + " teams");
+        }
+        ArrayList<String> padded = new ArrayList<>(Collections.nCopies(NUM_OF_TEAM_SCORES - slots.size(), ""));
+        padded.addAll(slots);
+        teams = TeamTable.forSlots(padded);
+        byte[] ids = new byte[NUM_OF_TEAM_SCORES];
+        for (int i = 0; i < NUM_OF_TEAM_SCORES; i++) {
+            ids[i] = teams.idOf(padded.get(i));
+        }
+        setSlots(ids);
+        playerName = user;
+    }
+
+    /**
+     * Rebuilds a bracket from stored team ids.
+     * @param teams table the ids refer to
+     * @param slots id of the team in each of the 127 slots, copied
+     * @param user name of the bracket owner
+     */
+    Bracket(TeamTable teams, byte[] slots, String user) {
+        if (slots.length != NUM_OF_TEAM_SCORES) {
+            throw new IllegalArgumentException("A bracket has " + NUM_OF_TEAM_SCORES + " slots, not " + slots.length);
+        }
+        this.teams = teams;
+        setSlots(slots);
         playerName = user;
     }
 
@@ -54,11 +148,7 @@ public class Bracket implements Serializable {
      */
     public void moveTeamUp(int position) {
         int newPos = ((position - 1) / 2);
-
-        /* Check that the team isn't already in the destination position. */
-        if (!(bracket.get(position).equals(bracket.get(newPos)))) {
-            bracket.set(newPos, bracket.get(position));
-        }
+        set(newPos, (byte) getTeamId(position));
     }
 
     /**
@@ -70,20 +160,20 @@ public class Bracket implements Serializable {
      */
     public void resetSubtree(int root) {
         if (root == 0) {//special behavior to reset final 4
-            for (int i = 0; i < 7; i++) {
-                bracket.set(i, "");
+            for (int i = 0; i <= LAYOUT.regionRoot(NUM_OF_REGIONS, NUM_OF_REGIONS - 1); i++) {
+                set(i, TeamTable.EMPTY);
             }
         } else {
             int child1 = 2 * root + 1;
             int child2 = 2 * root + 2;
 
-            if (child1 < 64) {//child is above round 1
+            if (child1 < NUM_OF_GAMES) {//child is above round 1
                 resetSubtree(child1);
             }
-            if (child2 < 64) {
+            if (child2 < NUM_OF_GAMES) {
                 resetSubtree(child2);
             }
-            bracket.set(root, "");
+            set(root, TeamTable.EMPTY);
         }
     }
 
@@ -92,15 +182,16 @@ public class Bracket implements Serializable {
      * @param child index of the first place that the team gets deselected
      */
     public void removeAbove(int child) {//renamed by matt 5/1
-        if (child == 0)
-            bracket.set(child, "");
-        else {
+        while (child > 0) {
             int parent = ((child - 1) / 2);
-            if (bracket.get(parent).equals(bracket.get(child))) {
-                removeAbove(parent);
+            boolean parentHasTeam = getTeamId(parent) == getTeamId(child);
+            set(child, TeamTable.EMPTY);
+            if (!parentHasTeam) {
+                return;
             }
-            bracket.set(child, "");
+            child = parent;
         }
+        set(0, TeamTable.EMPTY);
     }
 
     /**
@@ -110,8 +201,13 @@ public class Bracket implements Serializable {
      * @return boolean.
      */
     public boolean isComplete() {
-        for (String team : bracket) {
-            if (team.equals("")) {
+        for (byte team : games) {
+            if (team == TeamTable.EMPTY) {
+                return false;
+            }
+        }
+        for (byte team : leaves) {
+            if (team == TeamTable.EMPTY) {
                 return false;
             }
         }
@@ -127,31 +223,31 @@ public class Bracket implements Serializable {
      */
     public int scoreBracket(Bracket master) {
         int score = 0;
-        if (bracket.get(0).equals(master.getBracket().get(0)))//finals
-            score += 32;
-        for (int i = 1; i < 3; i++) {
-            if (bracket.get(i).equals(master.getBracket().get(i)))//semi
-                score += 16;
-        }
-        for (int i = 3; i < 7; i++) {
-            if (bracket.get(i).equals(master.getBracket().get(i)))//quarters
-                score += 8;
-        }
-        for (int i = 7; i < 15; i++) {
-            if (bracket.get(i).equals(master.getBracket().get(i)))//sweet 16
-                score += 4;
-        }
-        for (int i = 15; i < 31; i++) {
-            if (bracket.get(i).equals(master.getBracket().get(i)))//round of 32
-                score += 2;
-        }
-        for (int i = 31; i < 63; i++) {
-            if (bracket.get(i).equals(master.getBracket().get(i)))//round of 64
-                score += 1;
+        if (teams == master.teams || teams.equals(master.teams)) {
+            byte[] picks = games;
+            byte[] truth = master.games;
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                if (picks[i] == truth[i])
+                    score += POINTS[i];
+            }
+        } else {//different team ids, fall back to comparing names
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                if (getTeamName(i).equals(master.getTeamName(i)))
+                    score += POINTS[i];
+            }
         }
         return score;
     }
 
+    /**
+     * Points a correct pick is worth at a slot of the tree
+     * @param position index of the slot
+     * @return 32 for the winner down to 1 for the round of 64, 0 for the starting teams
+     */
+    public static int pointsFor(int position) {
+        return position < NUM_OF_GAMES ? POINTS[position] : 0;
+    }
+
     public void setPassword(String password)
     {
         this.password = password;
@@ -168,10 +264,148 @@ public class Bracket implements Serializable {
     }
 
     public void setTeamScore(int game, int score){
+        if (teamScores == null) {
+            teamScores = new int[NUM_OF_TEAM_SCORES];
+        }
         teamScores[game] = score;
     }
 
-    public ArrayList<String> getBracket(){
-        return bracket;
+    /**
+     * @param position index in the bracket tree
+     * @return the score the team in that slot put up in the game above it, as last set by
+     * {@link #setTeamScore(int, int)}; 0 if none was set or the bracket was deserialized
+     */
+    public int getTeamScore(int position){
+        return teamScores == null ? 0 : teamScores[position];
+    }
+
+    /**
+     * Read-only view of the slots as team names, "" where no team has been picked.
+     * @return the 127 slots of the tree in index order
+     */
+    public List<String> getBracket(){
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return teams.nameOf(getTeamId(index));
+            }
+
+            @Override
+            public int size() {
+                return NUM_OF_TEAM_SCORES;
+            }
+        };
+    }
+
+    /**
+     * @param position index of the slot
+     * @return name of the team in the slot, "" if none has been picked
+     */
+    public String getTeamName(int position){
+        return teams.nameOf(getTeamId(position));
+    }
+
+    /**
+     * @param position index of the slot
+     * @return id of the team in the slot according to {@link #getTeamTable()}, or TeamTable.EMPTY
+     */
+    public int getTeamId(int position){
+        return position < NUM_OF_GAMES ? games[position] : leaves[position - NUM_OF_GAMES];
+    }
+
+    /**
+     * @return the table that maps this bracket's team ids to names
+     */
+    public TeamTable getTeamTable(){
+        return teams;
+    }
+
+    /**
+     * Splits all 127 slots into the game slots, copied, and the first round slots, shared with the last
+     * bracket built this way when they match.
+     */
+    private void setSlots(byte[] slots) {
+        games = Arrays.copyOf(slots, NUM_OF_GAMES);
+        gamesShared = false;
+        byte[] firstRound = Arrays.copyOfRange(slots, NUM_OF_GAMES, NUM_OF_TEAM_SCORES);
+        byte[] last = lastLeaves;
+        if (last != null && Arrays.equals(last, firstRound)) {
+            firstRound = last;
+        } else {
+            lastLeaves = firstRound;
+        }
+        leaves = firstRound;
+        leavesShared = true;
+    }
+
+    /**
+     * Changes one slot, first taking a copy of its half of the tree if that is still shared.
+     * A write that changes nothing is skipped, so it never costs a copy.
+     */
+    private void set(int position, byte team) {
+        if (getTeamId(position) == team) {
+            return;
+        }
+        if (position < NUM_OF_GAMES) {
+            if (gamesShared) {
+                games = games.clone();
+                gamesShared = false;
+            }
+            games[position] = team;
+        } else {
+            if (leavesShared) {
+                leaves = leaves.clone();
+                leavesShared = false;
+            }
+            leaves[position - NUM_OF_GAMES] = team;
+        }
+    }
+
+    /**
+     * Reads a bracket written by ObjectOutputStream, as in a .ser file, through {@link #SERIAL_FILTER}.
+     * @param stream the serialized bracket; not closed
+     * @return the bracket
+     * @throws IOException if the stream can't be read, holds anything but a bracket, or passes the limits
+     * @throws ClassNotFoundException if the stream names a class that can't be found
+     */
+    static Bracket readSerialized(InputStream stream) throws IOException, ClassNotFoundException {
+        ObjectInputStream in = new ObjectInputStream(stream);
+        in.setObjectInputFilter(SERIAL_FILTER);
+        Object read = in.readObject();
+        if (!(read instanceof Bracket)) {
+            throw new InvalidObjectException("Not a bracket: " + (read == null ? "null" : read.getClass().getName()));
+        }
+        return (Bracket) read;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("bracket", new ArrayList<>(getBracket()));
+        fields.put("playerName", playerName);
+        fields.put("password", password);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Object slots = fields.get("bracket", null);
+        if (!(slots instanceof List) || ((List<?>) slots).size() != NUM_OF_TEAM_SCORES) {
+            throw new InvalidObjectException("Bracket does not have " + NUM_OF_TEAM_SCORES + " slots");
+        }
+        ArrayList<String> names = new ArrayList<>();
+        for (Object name : (List<?>) slots) {
+            if (!(name instanceof String)) {
+                throw new InvalidObjectException("Bracket slot is not a team name: " + name);
+            }
+            names.add((String) name);
+        }
+        teams = TeamTable.forSlots(names);
+        byte[] ids = new byte[NUM_OF_TEAM_SCORES];
+        for (int i = 0; i < NUM_OF_TEAM_SCORES; i++) {
+            ids[i] = teams.idOf(names.get(i));
+        }
+        setSlots(ids);
+        playerName = (String) fields.get("playerName", null);
+        password = (String) fields.get("password", null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,133 @@
+import java.nio.LongBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * Packs a complete bracket into one long. With the first round fixed, every game is a choice between
+ * its two children, so bit g is 0 when the winner of game g came up from slot 2g + 1 and 1 when it came
+ * from 2g + 2. Bits are in tree order, which puts each round's games next to each other: round 1 is
+ * bits 31 to 62 up to the final at bit 0. Bit 63 is always 0.
+ *
+ * Encoded brackets are scored against an encoded master without decoding. A pick is right when its
+ * bit matches the master's and the pick it came up from was right too, so each round is an XOR against
+ * the master, an AND with the right picks of the round below gathered through the chosen side, and a
+ * popcount.
+ */
+public final class BracketCodec {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_ROUNDS = 6;
+
+    private BracketCodec() {
+    }
+
+    /**
+     * @param b a bracket with every game picked
+     * @return the picks as 63 bits
+     * @throws IllegalArgumentException if a game has no pick, or its pick isn't one of the two teams below it
+     */
+    public static long encode(Bracket b) {
+        long bits = 0;
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            int winner = b.getTeamId(game);
+            if (winner != TeamTable.EMPTY && winner == b.getTeamId(2 * game + 2)) {
+                bits |= 1L << game;
+            } else if (winner == TeamTable.EMPTY || winner != b.getTeamId(2 * game + 1)) {
+                throw new IllegalArgumentException("Game " + game + " has no pick that came up from the game below it");
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Plays the picks out from the starting bracket's first round.
+     * @param bits picks from {@link #encode(Bracket)}
+     * @param starting the starting bracket the picks were made from
+     * @param user owner of the decoded bracket, may be null
+     * @return a new bracket with every game picked
+     */
+    public static Bracket decode(long bits, Bracket starting, String user) {
+        Bracket b = new Bracket(starting, user);
+        for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+            b.moveTeamUp(2 * game + 1 + (int) ((bits >>> game) & 1));
+        }
+        return b;
+    }
+
+    /**
+     * Same as {@link Bracket#scoreBracket(Bracket)} on the decoded brackets.
+     * @param picks an encoded player bracket
+     * @param master the encoded results
+     * @return points for every right pick
+     */
+    public static int score(long picks, long master) {
+        long same = ~(picks ^ master);
+        // right picks of the first round, one bit per game in order
+        long right = round(same, 1);
+        int score = Long.bitCount(right) * Bracket.pointsFor(NUM_OF_GAMES - 1);
+        for (int r = 2; r <= NUM_OF_ROUNDS; r++) {
+            long fromRight = round(picks, r);
+            long below = (evenBits(right) & ~fromRight) | (evenBits(right >>> 1) & fromRight);
+            right = round(same, r) & below;
+            score += Long.bitCount(right) * Bracket.pointsFor(firstGame(r));
+        }
+        return score;
+    }
+
+    /**
+     * Scores every encoded bracket of a pool, splitting the work over the common pool for big pools.
+     * @param picks the encoded player brackets
+     * @param master the encoded results
+     * @return score of each player, in the same order
+     */
+    public static int[] scoreAll(long[] picks, long master) {
+        int[] scores = new int[picks.length];
+        IntStream players = IntStream.range(0, picks.length);
+        if (picks.length >= 1 << 16) {
+            players = players.parallel();
+        }
+        players.forEach(p -> scores[p] = score(picks[p], master));
+        return scores;
+    }
+
+    /**
+     * Same as {@link #scoreAll(long[], long)}, reading the brackets from a buffer, such as a mapped file,
+     * without copying them out.
+     * @param picks the encoded player brackets, from index 0 to the buffer's limit
+     * @param master the encoded results
+     * @return score of each player, in the same order
+     */
+    public static int[] scoreAll(LongBuffer picks, long master) {
+        int[] scores = new int[picks.limit()];
+        IntStream players = IntStream.range(0, scores.length);
+        if (scores.length >= 1 << 16) {
+            players = players.parallel();
+        }
+        players.forEach(p -> scores[p] = score(picks.get(p), master));
+        return scores;
+    }
+
+    /** First game of a round in tree order: 31 for round 1 up to 0 for the final */
+    private static int firstGame(int round) {
+        return (1 << (NUM_OF_ROUNDS - round)) - 1;
+    }
+
+    /**
+     * @return the bits of one round's games, the leftmost game in bit 0
+     */
+    private static long round(long bits, int round) {
+        int first = firstGame(round);
+        return (bits >>> first) & ((1L << (first + 1)) - 1);
+    }
+
+    /**
+     * Gathers bits 0, 2, 4, ... of the low 32 into bits 0, 1, 2, ..., so the two games below a game
+     * line up with it.
+     */
+    private static long evenBits(long x) {
+        x &= 0x55555555L;
+        x = (x | (x >>> 1)) & 0x33333333L;
+        x = (x | (x >>> 2)) & 0x0F0F0F0FL;
+        x = (x | (x >>> 4)) & 0x00FF00FFL;
+        x = (x | (x >>> 8)) & 0x0000FFFFL;
+        return x;
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.nio.LongBuffer;
+import java.util.SplittableRandom;
+
+/**
+ * Fills random brackets and checks {@link BracketCodec} against the Bracket it packs: decoding an
+ * encoded bracket gives back every slot, scoring two encoded brackets gives what scoreBracket gives,
+ * scoreAll agrees over arrays and buffers, and an unfinished bracket is refused.
+ */
+public class BracketCodecTest {
+    public static void main(String[] args) {
+        try {
+            Bracket starting = new Bracket(new TournamentInfo().loadStartingBracket());
+            int pairs = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+            SplittableRandom rng = new SplittableRandom(args.length > 1 ? Long.parseLong(args[1]) : 23);
+
+            boolean passed = true;
+            long[] picks = new long[pairs];
+            int[] expected = new int[pairs];
+            Bracket master = fill(starting, "master", rng);
+            long encodedMaster = BracketCodec.encode(master);
+            for (int i = 0; i < pairs && passed; i++) {
+                Bracket player = fill(starting, "player" + i, rng);
+                Bracket results = fill(starting, null, rng);
+                long bits = BracketCodec.encode(player);
+                Bracket decoded = BracketCodec.decode(bits, starting, player.getPlayerName());
+                for (int slot = 0; slot < 127; slot++) {
+                    if (decoded.getTeamId(slot) != player.getTeamId(slot)) {
+                        System.out.println("Pair " + i + ": slot " + slot + " changed by a round trip");
+                        passed = false;
+                    }
+                }
+                if (bits >>> 63 != 0) {
+                    System.out.println("Pair " + i + ": bit 63 is set");
+                    passed = false;
+                }
+                int score = BracketCodec.score(bits, BracketCodec.encode(results));
+                if (score != player.scoreBracket(results)) {
+                    System.out.println("Pair " + i + ": scored " + score + " instead of " + player.scoreBracket(results));
+                    passed = false;
+                }
+                picks[i] = bits;
+                expected[i] = player.scoreBracket(master);
+            }
+
+            int[] fromArray = BracketCodec.scoreAll(picks, encodedMaster);
+            int[] fromBuffer = BracketCodec.scoreAll(LongBuffer.wrap(picks), encodedMaster);
+            for (int i = 0; i < pairs; i++) {
+                if (fromArray[i] != expected[i] || fromBuffer[i] != expected[i]) {
+                    System.out.println("Player " + i + ": scoreAll gave " + fromArray[i] + " and " + fromBuffer[i]
+                            + " instead of " + expected[i]);
+                    passed = false;
+                    break;
+                }
+            }
+
+            Bracket unfinished = fill(starting, "unfinished", rng);
+            unfinished.removeAbove(1 + rng.nextInt(62));
+            try {
+                BracketCodec.encode(unfinished);
+                System.out.println("An unfinished bracket was encoded");
+                passed = false;
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+
+            System.out.println(pairs + " pairs: " + (passed ? "PASS" : "FAIL"));
+        }
+        catch (IOException e) {
+            System.out.println("File not found");
+        }
+    }
+
+    /** A bracket with every game picked at random */
+    private static Bracket fill(Bracket starting, String player, SplittableRandom rng) {
+        Bracket b = new Bracket(starting, player);
+        for (int game = 62; game >= 0; game--) {
+            b.moveTeamUp(2 * game + 1 + rng.nextInt(2));
+        }
+        return b;
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of a pool of player brackets, built for scoring the whole pool at once.
+ * Instead of one object per player, every game slot gets a byte[] holding each player's pick for it,
+ * so scoring is 63 tight passes over primitive arrays rather than 63 comparisons per Bracket.
+ */
+public class BracketColumns {
+    /** Number of game slots that are scored, the starting teams below them are never picked */
+    private static final int NUM_OF_GAMES = 63;
+    /** Players scored together by one task; keeps a chunk of every column in cache */
+    private static final int CHUNK_SIZE = 4096;
+
+    /** Table all picks are expressed in */
+    private final TeamTable teams;
+    /** picks[game][player] = id of the team the player picked to win that game */
+    private final byte[][] picks;
+    /** Owner of each bracket, in the order they were added */
+    private final String[] playerNames;
+
+    /**
+     * Copies the picks of every bracket into columns.
+     * @param teams table to express the picks in, normally the starting bracket's
+     * @param brackets the player brackets, scores come back in this order
+     * @throws IllegalArgumentException if a bracket picks a team that is not in the table
+     */
+    public BracketColumns(TeamTable teams, List<Bracket> brackets) {
+        this.teams = teams;
+        int size = brackets.size();
+        picks = new byte[NUM_OF_GAMES][size];
+        playerNames = new String[size];
+        for (int p = 0; p < size; p++) {
+            Bracket b = brackets.get(p);
+            playerNames[p] = b.getPlayerName();
+            byte[] ids = teams.idsOf(b);
+            for (int g = 0; g < NUM_OF_GAMES; g++) {
+                picks[g][p] = ids[g];
+            }
+        }
+    }
+
+    /**
+     * Scores every bracket against the master in one pass, in parallel for large pools.
+     * Gives the same numbers as calling {@link Bracket#scoreBracket(Bracket)} on each bracket.
+     * @param master the bracket of true winners
+     * @return score of each bracket, in the order the brackets were given
+     */
+    public int[] scoreAll(Bracket master) {
+        return scoreAll(teams.idsOf(master));
+    }
+
+    /**
+     * Scores every bracket against winners given directly as team ids.
+     * @param truth id of the winner of each game, in this pool's team table
+     * @return score of each bracket, in the order the brackets were given
+     */
+    public int[] scoreAll(byte[] truth) {
+        int[] scores = new int[size()];
+        int chunks = (size() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream range = IntStream.range(0, chunks);
+        if (chunks > 1) {
+            range = range.parallel();
+        }
+        range.forEach(c -> scoreRange(truth, scores, c * CHUNK_SIZE, Math.min(size(), (c + 1) * CHUNK_SIZE)));
+        return scores;
+    }
+
+    /**
+     * Adds each game's points to the players in [from, to) that picked the true winner.
+     * @param truth team id of the winner of every game
+     * @param scores running totals, updated in place
+     * @param from first player, inclusive
+     * @param to last player, exclusive
+     */
+    void scoreRange(byte[] truth, int[] scores, int from, int to) {
+        for (int g = 0; g < NUM_OF_GAMES; g++) {
+            byte winner = truth[g];
+            int points = Bracket.pointsFor(g);
+            byte[] column = picks[g];
+            for (int p = from; p < to; p++) {
+                scores[p] += column[p] == winner ? points : 0;
+            }
+        }
+    }
+
+    /**
+     * @return number of brackets in the pool
+     */
+    public int size() {
+        return playerNames.length;
+    }
+
+    /**
+     * @param player index of the bracket
+     * @return name of the bracket's owner
+     */
+    public String getPlayerName(int player) {
+        return playerNames[player];
+    }
+
+    /**
+     * @param player index of the bracket
+     * @param game index of the game slot, 0-62
+     * @return id of the team the player picked, see {@link #getTeamTable()}
+     */
+    public int getPick(int player, int game) {
+        return picks[game][player];
+    }
+
+    /**
+     * Every player's pick for one game, shared with this pool rather than copied.
+     * @param game index of the game slot, 0-62
+     * @return column[player] = id of the team the player picked
+     */
+    byte[] getColumn(int game) {
+        return picks[game];
+    }
+
+    /**
+     * @return the table the picks are expressed in
+     */
+    public TeamTable getTeamTable() {
+        return teams;
+    }
+}
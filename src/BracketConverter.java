@@ -0,0 +1,184 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Converts a directory of legacy .ser brackets, as written by MarchMadnessGUI.serializeBracket, into a
+ * {@link PoolFile} or into one line per bracket of CSV or JSON.
+ *
+ * Files are converted in file name order, BATCH_SIZE at a time: each batch is deserialized and checked
+ * in parallel, then written out in order before the next is read, so no more than one batch of brackets
+ * is held at once whatever the size of the directory. What is kept for every file is small: its name,
+ * the names of the players converted so far to catch repeats, and for a pool file the writer's 8 encoded
+ * bytes per bracket.
+ *
+ * Files are deserialized through {@link Bracket#SERIAL_FILTER}, so a file that holds anything but a
+ * bracket is refused before any of it is built.
+ *
+ * A bracket is converted if it deserializes, starts from the teams of the starting bracket (the order
+ * of initialMatches.txt), has every game picked, and belongs to a player not already converted, so of
+ * two files for the same player the first by file name is kept. Every other file is reported on the
+ * error stream, one line each, and left out.
+ */
+public class BracketConverter {
+    /** Files read and checked together before any of them is written */
+    private static final int BATCH_SIZE = 1024;
+
+    private final Bracket starting;
+    private final String[] teamNames;
+    private final PrintStream errors;
+    private final HashSet<String> players = new HashSet<>();
+    private int converted;
+    private int skipped;
+
+    /** Where one converted bracket goes */
+    private interface Sink {
+        void accept(Bracket b, long picks) throws IOException;
+    }
+
+    /** Result of reading one file: the bracket and its picks, or why it was left out */
+    private static class Entry {
+        Path file;
+        Bracket bracket;
+        long picks;
+        String error;
+    }
+
+    /**
+     * @param starting the starting bracket, from {@link TournamentInfo#loadStartingBracket()}
+     * @param errors where to report the files left out
+     */
+    public BracketConverter(Bracket starting, PrintStream errors) {
+        this.starting = starting;
+        this.errors = errors;
+        teamNames = PoolFile.firstRoundNames(starting);
+    }
+
+    /**
+     * Writes every valid bracket in the directory into a pool file.
+     * @param dir directory holding the .ser files
+     * @param out the pool file, replaced if it exists
+     * @throws IOException if the directory can't be listed or the pool file can't be written
+     */
+    public void toPool(File dir, File out) throws IOException {
+        // the directory is listed before the writer exists, and the writer is only closed, which writes
+        // the file, once everything converted, so a failure leaves any old pool file as it was
+        List<String> files = list(dir);
+        PoolFile.Writer writer = new PoolFile.Writer(out, starting);
+        convert(dir, files, (b, picks) -> writer.add(b.getPlayerName(), picks));
+        writer.close();
+    }
+
+    /**
+     * Writes every valid bracket in the directory as one line: a CSV row of player, picks and champion
+     * after a header row, or a JSON object with the same fields. Picks are the 63
+     * {@link BracketCodec#encode(Bracket)} bits as 16 hex digits.
+     * @param dir directory holding the .ser files
+     * @param out where the lines go
+     * @param json true for JSON lines, false for CSV
+     * @throws IOException if the directory can't be listed
+     */
+    public void toLines(File dir, PrintStream out, boolean json) throws IOException {
+        List<String> files = list(dir);
+        if (!json) {
+            out.println("player,picks,champion");
+        }
+        convert(dir, files, (b, picks) -> {
+            String hex = String.format("%016x", picks);
+            if (json) {
+                out.println("{\"player\": " + Escaping.json(b.getPlayerName()) + ", \"picks\": \"" + hex
+                        + "\", \"champion\": " + Escaping.json(b.getTeamName(0)) + "}");
+            } else {
+                out.println(Escaping.csv(b.getPlayerName()) + "," + hex + "," + Escaping.csv(b.getTeamName(0)));
+            }
+        });
+        out.flush();
+    }
+
+    /**
+     * @return number of brackets written by the conversions so far
+     */
+    public int getConverted() {
+        return converted;
+    }
+
+    /**
+     * @return number of files reported and left out by the conversions so far
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return names of the .ser files in the directory, sorted
+     * @throws IOException if the directory can't be listed
+     */
+    private static List<String> list(File dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir.toPath(), "*.ser")) {
+            for (Path file : files) {
+                names.add(file.getFileName().toString());
+            }
+        }
+        Collections.sort(names);
+        return names;
+    }
+
+    private void convert(File dir, List<String> files, Sink sink) throws IOException {
+        List<Path> batch = new ArrayList<>(BATCH_SIZE);
+        for (String name : files) {
+            batch.add(dir.toPath().resolve(name));
+            if (batch.size() == BATCH_SIZE) {
+                convertBatch(batch, sink);
+                batch.clear();
+            }
+        }
+        convertBatch(batch, sink);
+    }
+
+    private void convertBatch(List<Path> batch, Sink sink) throws IOException {
+        Entry[] entries = batch.parallelStream().map(this::read).toArray(Entry[]::new);
+        for (Entry e : entries) {
+            if (e.error == null && !players.add(e.bracket.getPlayerName())) {
+                e.error = e.bracket.getPlayerName() + " already has a bracket";
+            }
+            if (e.error != null) {
+                errors.println("Skipping " + e.file + ": " + e.error);
+                skipped++;
+            } else {
+                sink.accept(e.bracket, e.picks);
+                converted++;
+            }
+        }
+    }
+
+    /**
+     * Deserializes and checks one file; safe to run on several threads at once.
+     */
+    private Entry read(Path file) {
+        Entry e = new Entry();
+        e.file = file;
+        try (InputStream stream = Files.newInputStream(file)) {
+            e.bracket = Bracket.readSerialized(stream);
+            if (e.bracket.getPlayerName() == null) {
+                e.error = "bracket has no player";
+            } else if (!Arrays.equals(PoolFile.firstRoundNames(e.bracket), teamNames)) {
+                e.error = "bracket starts from other teams than initialMatches.txt";
+            } else {
+                e.picks = BracketCodec.encode(e.bracket);
+            }
+        } catch (IOException | ClassNotFoundException | IllegalArgumentException ex) {
+            e.error = ex.toString();
+        }
+        return e;
+    }
+}
@@ -0,0 +1,286 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shape of a single elimination tournament: how many teams, which games feed which, what round each
+ * game is in and what a correct pick there is worth. It is worked out once per shape and shared by
+ * every tree of that shape, so the per-game loops in {@link TournamentTree} never recompute an index.
+ *
+ * The main draw has a power of two teams, laid out like {@link Bracket}'s 127 slots: the champion at
+ * node 0, the children of node n at 2n + 1 and 2n + 2, and the first round teams at the last
+ * {@link #getTeams()} nodes. A play-in game sits on one of those first round nodes, which then holds
+ * the play-in's winner instead of a team; the two teams of each play-in are appended after the main
+ * draw, two nodes per play-in in draw order.
+ *
+ * Rounds are numbered 0 for the play-ins, 1 for the first round of the main draw up to
+ * {@link #getRounds()} for the final.
+ */
+public final class BracketLayout {
+    /** Every layout built through {@link #of(int, int...)}, by size and play-ins */
+    private static final ConcurrentHashMap<String, BracketLayout> LAYOUTS = new ConcurrentHashMap<>();
+
+    /** The 64 team tournament {@link Bracket} holds, scored 1, 2, 4, 8, 16, 32 by round */
+    public static final BracketLayout STANDARD = of(64);
+
+    /** Teams in the main draw */
+    private final int teams;
+    private final int rounds;
+    /** Nodes in the tree, play-in teams included */
+    private final int nodes;
+    /** Nodes every tree starts with a team in, in draw order; entrant e starts at startingNodes[e] */
+    private final int[] startingNodes;
+    /** Main draw node of each play-in, in draw order */
+    private final int[] playIns;
+    /** Every game node in an order where both teams are decided first: play-ins, then the main draw bottom up */
+    private final int[] games;
+    /** Children of games[i], in the same order */
+    private final int[] left;
+    private final int[] right;
+    /** Parent of every node, -1 for the root */
+    private final int[] parent;
+    /** Round of games[i] */
+    private final int[] roundOfGame;
+    /** Points for a correct pick at games[i] */
+    private final int[] points;
+    /** Points by round, 0 for the play-ins */
+    private final int[] roundWeights;
+
+    private BracketLayout(int teams, int[] playIns) {
+        this.teams = teams;
+        rounds = Integer.numberOfTrailingZeros(teams);
+        this.playIns = playIns;
+        int mainNodes = 2 * teams - 1;
+        nodes = mainNodes + 2 * playIns.length;
+
+        parent = new int[nodes];
+        parent[0] = -1;
+        for (int n = 1; n < mainNodes; n++) {
+            parent[n] = (n - 1) / 2;
+        }
+        startingNodes = new int[teams + playIns.length];
+        int entrant = 0;
+        int playIn = 0;
+        for (int n = teams - 1; n < mainNodes; n++) {
+            if (playIn < playIns.length && playIns[playIn] == n) {
+                int first = mainNodes + 2 * playIn;
+                parent[first] = n;
+                parent[first + 1] = n;
+                startingNodes[entrant++] = first;
+                startingNodes[entrant++] = first + 1;
+                playIn++;
+            } else {
+                startingNodes[entrant++] = n;
+            }
+        }
+
+        int gameCount = playIns.length + teams - 1;
+        games = new int[gameCount];
+        left = new int[gameCount];
+        right = new int[gameCount];
+        roundOfGame = new int[gameCount];
+        for (int p = 0; p < playIns.length; p++) {
+            games[p] = playIns[p];
+            left[p] = mainNodes + 2 * p;
+            right[p] = mainNodes + 2 * p + 1;
+        }
+        for (int i = playIns.length, n = teams - 2; n >= 0; i++, n--) {
+            games[i] = n;
+            left[i] = 2 * n + 1;
+            right[i] = 2 * n + 2;
+            roundOfGame[i] = rounds - (31 - Integer.numberOfLeadingZeros(n + 1));
+        }
+
+        roundWeights = new int[rounds + 1];
+        for (int r = 1; r <= rounds; r++) {
+            roundWeights[r] = 1 << (r - 1);
+        }
+        points = new int[gameCount];
+        for (int i = 0; i < gameCount; i++) {
+            points[i] = roundWeights[roundOfGame[i]];
+        }
+    }
+
+    /** Same shape with other weights; the structure arrays are shared, not copied */
+    private BracketLayout(BracketLayout shape, int[] roundWeights) {
+        teams = shape.teams;
+        rounds = shape.rounds;
+        nodes = shape.nodes;
+        startingNodes = shape.startingNodes;
+        playIns = shape.playIns;
+        games = shape.games;
+        left = shape.left;
+        right = shape.right;
+        parent = shape.parent;
+        roundOfGame = shape.roundOfGame;
+        this.roundWeights = roundWeights;
+        points = new int[games.length];
+        for (int i = 0; i < games.length; i++) {
+            points[i] = roundWeights[roundOfGame[i]];
+        }
+    }
+
+    /**
+     * Returns the shared layout for a tournament, scoring each main draw round double the one before it
+     * starting from 1, and the play-ins nothing.
+     * @param teams teams in the main draw, a power of two from 2 up
+     * @param playInSlots first round positions, 0 to teams - 1 in draw order, decided by a play-in game
+     * @return the layout, built the first time it is asked for
+     * @throws IllegalArgumentException if teams isn't a power of two or a position is repeated or out of range
+     */
+    public static BracketLayout of(int teams, int... playInSlots) {
+        if (teams < 2 || Integer.bitCount(teams) != 1) {
+            throw new IllegalArgumentException("A bracket needs a power of two teams, not " + teams);
+        }
+        int[] playIns = playInSlots.clone();
+        Arrays.sort(playIns);
+        for (int p = 0; p < playIns.length; p++) {
+            if (playIns[p] < 0 || playIns[p] >= teams || (p > 0 && playIns[p] == playIns[p - 1])) {
+                throw new IllegalArgumentException("Bad play-in position " + playIns[p] + " for " + teams + " teams");
+            }
+        }
+        // to nodes only once every position is checked, the repeat check compares positions
+        for (int p = 0; p < playIns.length; p++) {
+            playIns[p] += teams - 1;
+        }
+        return LAYOUTS.computeIfAbsent(teams + Arrays.toString(playIns), key -> new BracketLayout(teams, playIns));
+    }
+
+    /**
+     * @param weights points for a correct pick in each round, index 0 for the play-ins then 1 to {@link #getRounds()}
+     * @return a layout of the same shape that scores with the given weights
+     * @throws IllegalArgumentException if there isn't exactly one weight per round
+     */
+    public BracketLayout withRoundWeights(int... weights) {
+        if (weights.length != rounds + 1) {
+            throw new IllegalArgumentException("Expected " + (rounds + 1) + " round weights, not " + weights.length);
+        }
+        return new BracketLayout(this, weights.clone());
+    }
+
+    /**
+     * @return teams in the main draw
+     */
+    public int getTeams() {
+        return teams;
+    }
+
+    /**
+     * @return teams in the tournament, play-in teams included
+     */
+    public int getEntrants() {
+        return startingNodes.length;
+    }
+
+    /**
+     * @return rounds in the main draw
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return nodes in a tree of this shape
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * @return games in the tournament, play-ins included
+     */
+    public int getGames() {
+        return games.length;
+    }
+
+    /**
+     * @return number of play-in games
+     */
+    public int getPlayIns() {
+        return playIns.length;
+    }
+
+    /**
+     * @param entrant team number, 0 to {@link #getEntrants()} - 1 in draw order
+     * @return the node the team starts at
+     */
+    public int startingNode(int entrant) {
+        return startingNodes[entrant];
+    }
+
+    /**
+     * @param i game number in play order, 0 to {@link #getGames()} - 1
+     * @return the node holding the game's winner
+     */
+    public int gameNode(int i) {
+        return games[i];
+    }
+
+    /**
+     * @param node any node
+     * @return the node its team moves up to by winning, -1 for the root
+     */
+    public int parentOf(int node) {
+        return parent[node];
+    }
+
+    /**
+     * @param round 1 for the first round of the main draw up to {@link #getRounds()} for the final
+     * @return the lowest node of that round's games; they run on consecutively for teams >> round nodes
+     */
+    public int firstNodeOfRound(int round) {
+        return (teams >> round) - 1;
+    }
+
+    /**
+     * @param regions how many regions to split the main draw into, a power of two no bigger than the teams
+     * @param region 0 to regions - 1
+     * @return the node holding that region's winner
+     */
+    public int regionRoot(int regions, int region) {
+        return regions - 1 + region;
+    }
+
+    /**
+     * @param round round number, 0 for the play-ins
+     * @return points for a correct pick in that round
+     */
+    public int getRoundWeight(int round) {
+        return roundWeights[round];
+    }
+
+    /**
+     * @param node any node
+     * @return points for a correct pick at the node, 0 for a node that starts with a team
+     */
+    public int pointsFor(int node) {
+        if (node < teams - 1) {
+            return points[playIns.length + teams - 2 - node];
+        }
+        int p = Arrays.binarySearch(playIns, node);
+        return p >= 0 ? points[p] : 0;
+    }
+
+    /*
+     * The tree hot loops read these directly instead of going through a method per game.
+     */
+
+    int[] games() {
+        return games;
+    }
+
+    int[] leftChildren() {
+        return left;
+    }
+
+    int[] rightChildren() {
+        return right;
+    }
+
+    int[] points() {
+        return points;
+    }
+
+    int[] startingNodes() {
+        return startingNodes;
+    }
+}
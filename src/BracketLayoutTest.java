@@ -0,0 +1,249 @@
+import java.util.SplittableRandom;
+
+/**
+ * Checks {@link BracketLayout} and {@link TournamentTree} on the standard 64 team draw and on a 68 team
+ * one with four play-ins: the standard layout must score each game as Bracket always has, every play-in
+ * must feed the right first round node, games must come in an order that decides both teams first, and
+ * each round must be worth its own weight, play-ins included.
+ */
+public class BracketLayoutTest {
+    /** First round positions decided by a play-in, as in a 68 team field */
+    private static final int[] PLAY_IN_SLOTS = {1, 17, 42, 58};
+    /** A different weight for every round, play-ins first, so a game scored as another round shows up */
+    private static final int[] WEIGHTS = {5, 7, 11, 13, 17, 19, 23};
+
+    public static void main(String[] args) {
+        SplittableRandom rng = new SplittableRandom(args.length > 0 ? Long.parseLong(args[0]) : 31);
+        boolean passed = checkStandard();
+        passed &= checkPlayIns();
+        passed &= checkRoundWeights();
+        passed &= checkTrees(rng);
+        passed &= checkArguments();
+        System.out.println(passed ? "PASS" : "FAIL");
+    }
+
+    /**
+     * The standard layout against Bracket's scoring as first written: 1 point a game in the first round,
+     * doubling every round up to 32 for the final.
+     */
+    private static boolean checkStandard() {
+        BracketLayout standard = BracketLayout.STANDARD;
+        boolean passed = standard.getTeams() == 64 && standard.getEntrants() == 64 && standard.getRounds() == 6
+                && standard.getNodes() == 127 && standard.getGames() == 63 && standard.getPlayIns() == 0;
+        for (int node = 0; node < 127; node++) {
+            int expected = node == 0 ? 32 : node < 3 ? 16 : node < 7 ? 8 : node < 15 ? 4 : node < 31 ? 2
+                    : node < 63 ? 1 : 0;
+            if (standard.pointsFor(node) != expected || Bracket.pointsFor(node) != expected) {
+                System.out.println("Standard node " + node + " is worth " + standard.pointsFor(node)
+                        + ", Bracket gives " + Bracket.pointsFor(node) + ", not " + expected);
+                passed = false;
+            }
+            if (standard.parentOf(node) != (node == 0 ? -1 : (node - 1) / 2)) {
+                System.out.println("Standard node " + node + " has parent " + standard.parentOf(node));
+                passed = false;
+            }
+        }
+        for (int round = 1; round <= 6; round++) {
+            passed &= standard.getRoundWeight(round) == 1 << (round - 1)
+                    && standard.firstNodeOfRound(round) == (64 >> round) - 1;
+        }
+        for (int region = 0; region < 4; region++) {
+            passed &= standard.regionRoot(4, region) == 3 + region;
+        }
+        System.out.println("standard layout " + (passed ? "ok" : "DIFFERENT"));
+        return passed;
+    }
+
+    /**
+     * The 68 team layout: where the play-in teams sit, whose children they are, and the game order.
+     */
+    private static boolean checkPlayIns() {
+        BracketLayout layout = BracketLayout.of(64, PLAY_IN_SLOTS);
+        boolean passed = layout.getTeams() == 64 && layout.getEntrants() == 68 && layout.getRounds() == 6
+                && layout.getNodes() == 135 && layout.getGames() == 67 && layout.getPlayIns() == 4;
+        if (!passed) {
+            System.out.println("68 teams: " + layout.getEntrants() + " entrants, " + layout.getNodes() + " nodes, "
+                    + layout.getGames() + " games, " + layout.getPlayIns() + " play-ins");
+        }
+
+        for (int p = 0; p < PLAY_IN_SLOTS.length; p++) {
+            int slot = 63 + PLAY_IN_SLOTS[p];
+            int first = 127 + 2 * p;
+            if (layout.gameNode(p) != slot || layout.parentOf(first) != slot || layout.parentOf(first + 1) != slot
+                    || layout.parentOf(slot) != (slot - 1) / 2 || layout.pointsFor(slot) != 0
+                    || layout.pointsFor(first) != 0) {
+                System.out.println("Play-in " + p + " at node " + slot + " is game " + layout.gameNode(p)
+                        + " with teams under " + layout.parentOf(first) + " and " + layout.parentOf(first + 1));
+                passed = false;
+            }
+        }
+
+        // entrants in draw order: a play-in slot gives its two teams in place of one
+        int entrant = 0;
+        for (int node = 63; node < 127; node++) {
+            int p = indexOf(PLAY_IN_SLOTS, node - 63);
+            int[] expected = p < 0 ? new int[] {node} : new int[] {127 + 2 * p, 128 + 2 * p};
+            for (int start : expected) {
+                if (layout.startingNode(entrant) != start) {
+                    System.out.println("Entrant " + entrant + " starts at " + layout.startingNode(entrant)
+                            + ", not " + start);
+                    passed = false;
+                }
+                entrant++;
+            }
+        }
+
+        // every game's two teams are a starting team or the winner of an earlier game
+        boolean[] decided = new boolean[layout.getNodes()];
+        for (int e = 0; e < layout.getEntrants(); e++) {
+            decided[layout.startingNode(e)] = true;
+        }
+        int[] left = layout.leftChildren();
+        int[] right = layout.rightChildren();
+        for (int i = 0; i < layout.getGames(); i++) {
+            int game = layout.gameNode(i);
+            if (!decided[left[i]] || !decided[right[i]] || decided[game]
+                    || layout.parentOf(left[i]) != game || layout.parentOf(right[i]) != game) {
+                System.out.println("Game " + i + " at node " + game + " is played before its teams "
+                        + left[i] + " and " + right[i] + " are known");
+                passed = false;
+            }
+            decided[game] = true;
+        }
+        System.out.println("68 team layout " + (passed ? "ok" : "WRONG"));
+        return passed;
+    }
+
+    /**
+     * pointsFor with a weight per round, on the plain and the play-in layouts.
+     */
+    private static boolean checkRoundWeights() {
+        boolean passed = true;
+        BracketLayout plain = BracketLayout.of(64, PLAY_IN_SLOTS);
+        BracketLayout weighted = plain.withRoundWeights(WEIGHTS);
+        passed &= plain.getRoundWeight(0) == 0;
+        for (int round = 0; round <= 6; round++) {
+            passed &= weighted.getRoundWeight(round) == WEIGHTS[round];
+        }
+        for (int node = 0; node < weighted.getNodes(); node++) {
+            int round = node < 63 ? 6 - (31 - Integer.numberOfLeadingZeros(node + 1)) : -1;
+            if (node >= 63 && node < 127 && indexOf(PLAY_IN_SLOTS, node - 63) >= 0) {
+                round = 0;
+            }
+            int expected = round < 0 ? 0 : WEIGHTS[round];
+            int expectedPlain = round < 0 ? 0 : plain.getRoundWeight(round);
+            if (weighted.pointsFor(node) != expected || plain.pointsFor(node) != expectedPlain) {
+                System.out.println("Node " + node + " is worth " + weighted.pointsFor(node) + " weighted and "
+                        + plain.pointsFor(node) + " plain, not " + expected + " and " + expectedPlain);
+                passed = false;
+            }
+        }
+        for (int round = 1; round <= 6; round++) {
+            int first = weighted.firstNodeOfRound(round);
+            int last = 2 * first;
+            passed &= weighted.pointsFor(first) == WEIGHTS[round] && weighted.pointsFor(last) == WEIGHTS[round];
+        }
+        // a new weighting doesn't change the shared layout it was made from
+        passed &= BracketLayout.of(64, PLAY_IN_SLOTS).pointsFor(0) == 32;
+        System.out.println("round weights " + (passed ? "ok" : "WRONG"));
+        return passed;
+    }
+
+    /**
+     * Simulated trees on the weighted 68 team layout: every winner came up from below, a tree scores
+     * every point against itself, and changing results takes off exactly the points of the games changed.
+     */
+    private static boolean checkTrees(SplittableRandom rng) {
+        BracketLayout layout = BracketLayout.of(64, PLAY_IN_SLOTS).withRoundWeights(WEIGHTS);
+        int entrants = layout.getEntrants();
+        int total = 0;
+        for (int i = 0; i < layout.getGames(); i++) {
+            total += layout.pointsFor(layout.gameNode(i));
+        }
+        boolean passed = total == 4 * WEIGHTS[0] + 32 * WEIGHTS[1] + 16 * WEIGHTS[2] + 8 * WEIGHTS[3]
+                + 4 * WEIGHTS[4] + 2 * WEIGHTS[5] + WEIGHTS[6];
+
+        for (int trial = 0; trial < 200 && passed; trial++) {
+            double[] winProbability = new double[entrants * entrants];
+            for (int a = 0; a < entrants; a++) {
+                for (int b = a; b < entrants; b++) {
+                    winProbability[a * entrants + b] = a == b ? 0.5 : rng.nextDouble();
+                    winProbability[b * entrants + a] = 1 - winProbability[a * entrants + b];
+                }
+            }
+            TournamentTree master = new TournamentTree(layout);
+            master.simulate(winProbability, rng);
+            TournamentTree picks = new TournamentTree(layout);
+            picks.simulate(winProbability, rng);
+
+            int expected = 0;
+            for (int i = 0; i < layout.getGames(); i++) {
+                int game = layout.gameNode(i);
+                int winner = master.get(game);
+                if (winner != master.get(layout.leftChildren()[i]) && winner != master.get(layout.rightChildren()[i])) {
+                    System.out.println("Trial " + trial + ": game " + game + " was won by a team not playing in it");
+                    passed = false;
+                }
+                if (picks.get(game) == winner) {
+                    expected += layout.pointsFor(game);
+                }
+            }
+            if (!master.isComplete() || master.score(master) != total || picks.score(master) != expected) {
+                System.out.println("Trial " + trial + ": scored " + picks.score(master) + " instead of " + expected
+                        + ", a perfect tree " + master.score(master) + " of " + total);
+                passed = false;
+            }
+
+            // taking back a play-in's winner empties every game it was picked to win
+            TournamentTree partial = new TournamentTree(master);
+            int p = rng.nextInt(PLAY_IN_SLOTS.length);
+            int slot = layout.gameNode(p);
+            int team = partial.get(slot);
+            int lost = 0;
+            for (int node = slot; node >= 0 && master.get(node) == team; node = layout.parentOf(node)) {
+                lost += layout.pointsFor(node);
+            }
+            partial.removeAbove(slot);
+            if (partial.isComplete() || partial.score(master) != total - lost) {
+                System.out.println("Trial " + trial + ": after taking back play-in " + p + " scored "
+                        + partial.score(master) + ", not " + (total - lost));
+                passed = false;
+            }
+            partial.resetSubtree(0);
+            if (partial.score(master) != 0 || partial.get(layout.startingNode(entrants - 1)) != entrants - 1) {
+                System.out.println("Trial " + trial + ": resetting the tree left picks or lost a team");
+                passed = false;
+            }
+        }
+        System.out.println("trees " + (passed ? "ok" : "WRONG"));
+        return passed;
+    }
+
+    private static boolean checkArguments() {
+        boolean passed = BracketLayout.of(64, 58, 1, 42, 17) == BracketLayout.of(64, PLAY_IN_SLOTS);
+        passed &= throwsIllegalArgument(() -> BracketLayout.of(48));
+        passed &= throwsIllegalArgument(() -> BracketLayout.of(64, 64));
+        passed &= throwsIllegalArgument(() -> BracketLayout.of(64, 3, 3));
+        passed &= throwsIllegalArgument(() -> BracketLayout.STANDARD.withRoundWeights(1, 2, 4));
+        System.out.println("arguments " + (passed ? "ok" : "WRONG"));
+        return passed;
+    }
+
+    private static boolean throwsIllegalArgument(Runnable r) {
+        try {
+            r.run();
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
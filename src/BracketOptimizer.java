@@ -0,0 +1,261 @@
+/**
+ * Evaluates and searches brackets under the point system of {@link Bracket#scoreBracket(Bracket)}.
+ * Works from the chance of every team winning every game (see {@link AdvancementCalculator#reachProbabilities})
+ * and represents a candidate as the starting bracket index of the team picked at each of the 63 games.
+ */
+public class BracketOptimizer {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_TEAMS = 64;
+    private static final int NUM_OF_NODES = 127;
+    /** Deepest chain of games a single pick can be carried through, the root included */
+    private static final int MAX_CHAIN = 6;
+
+    /** reach[node][team] = chance the team wins the game at the node */
+    private final double[][] reach;
+
+    /**
+     * @param reach probability of each team winning each game, as from AdvancementCalculator.reachProbabilities
+     */
+    public BracketOptimizer(double[][] reach) {
+        this.reach = reach;
+    }
+
+    /**
+     * Expected score of a bracket: the points of every game times the chance its pick wins that game.
+     * @param b a bracket built from the same starting bracket the probabilities were computed for
+     * @return expected points
+     */
+    public double expectedScore(Bracket b) {
+        int[] picks = positionsOf(b);
+        double expected = 0;
+        for (int i = 0; i < NUM_OF_GAMES; i++) {
+            if (picks[i] >= 0) {
+                expected += Bracket.pointsFor(i) * reach[i][picks[i]];
+            }
+        }
+        return expected;
+    }
+
+    /**
+     * Finds the bracket with the highest expected score, exactly.
+     * best[node][team] is the most a subtree can be worth given the team is picked to win its top game,
+     * so one bottom-up pass over the tree covers every one of the 2^63 possible brackets.
+     * @param starting the starting bracket the probabilities were computed for
+     * @param user name of the new bracket's owner
+     * @return a complete bracket with the highest expected score
+     */
+    public Bracket maxExpectedScore(Bracket starting, String user) {
+        double[][] best = new double[NUM_OF_NODES][NUM_OF_TEAMS];
+        for (int node = NUM_OF_GAMES - 1; node >= 0; node--) {
+            int left = 2 * node + 1;
+            int right = 2 * node + 2;
+            double bestLeft = max(best[left], left);
+            double bestRight = max(best[right], right);
+            int first = AdvancementCalculator.firstTeam(node);
+            int half = AdvancementCalculator.subtreeWidth(left);
+            for (int t = first; t < first + 2 * half; t++) {
+                boolean fromLeft = t < first + half;
+                best[node][t] = Bracket.pointsFor(node) * reach[node][t]
+                        + (fromLeft ? best[left][t] + bestRight : best[right][t] + bestLeft);
+            }
+        }
+
+        int[] picks = new int[NUM_OF_GAMES];
+        fill(best, picks, 0, argMax(best[0], 0));
+        return toBracket(starting, picks, user);
+    }
+
+    /**
+     * Hill-climbs from the max expected score bracket towards the bracket most likely to finish first
+     * against a field of opponents over a fixed sample of tournament outcomes.
+     * Each step tries flipping every game to the other team that reached it (carrying the change up
+     * through the games the old team was picked to win) and keeps the best improvement.
+     * Candidates are scored incrementally against per-outcome running totals without allocating.
+     * @param starting the starting bracket the probabilities were computed for
+     * @param field the opponents' brackets
+     * @param outcomes sampled results, outcomes[k][game] = starting bracket index of the winner
+     * @param maxSteps most flips to make
+     * @param user name of the new bracket's owner
+     * @return the best bracket found
+     */
+    public Bracket maxWinProbability(Bracket starting, BracketColumns field, int[][] outcomes, int maxSteps, String user) {
+        int samples = outcomes.length;
+        int[] bestOpponent = new int[samples];
+        byte[] fieldIds = new byte[NUM_OF_TEAMS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            fieldIds[t] = field.getTeamTable().idOf(starting.getTeamName(NUM_OF_GAMES + t));
+        }
+        byte[] truth = new byte[NUM_OF_GAMES];
+        for (int k = 0; k < samples; k++) {
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                truth[i] = fieldIds[outcomes[k][i]];
+            }
+            for (int score : field.scoreAll(truth)) {
+                bestOpponent[k] = Math.max(bestOpponent[k], score);
+            }
+        }
+
+        int[] picks = positionsOf(maxExpectedScore(starting, user));
+        int[] scores = new int[samples];
+        for (int k = 0; k < samples; k++) {
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                if (picks[i] == outcomes[k][i]) {
+                    scores[k] += Bracket.pointsFor(i);
+                }
+            }
+        }
+
+        int[] chain = new int[MAX_CHAIN];
+        double current = wins(scores, bestOpponent, null, 0, 0, 0, outcomes);
+        for (int step = 0; step < maxSteps; step++) {
+            int bestGame = -1;
+            double bestWins = current;
+            for (int game = 0; game < NUM_OF_GAMES; game++) {
+                int length = chainOf(picks, game, chain);
+                int replacement = otherTeam(picks, game);
+                double w = wins(scores, bestOpponent, chain, length, picks[game], replacement, outcomes);
+                if (w > bestWins) {
+                    bestWins = w;
+                    bestGame = game;
+                }
+            }
+            if (bestGame < 0) {
+                break;
+            }
+            int length = chainOf(picks, bestGame, chain);
+            int old = picks[bestGame];
+            int replacement = otherTeam(picks, bestGame);
+            for (int k = 0; k < samples; k++) {
+                scores[k] += delta(chain, length, old, replacement, outcomes[k]);
+            }
+            for (int c = 0; c < length; c++) {
+                picks[chain[c]] = replacement;
+            }
+            current = bestWins;
+        }
+        return toBracket(starting, picks, user);
+    }
+
+    /**
+     * Number of sampled outcomes the candidate wins, counting a tie for first as half,
+     * after replacing old with replacement at the games in chain.
+     */
+    private static double wins(int[] scores, int[] bestOpponent, int[] chain, int length, int old, int replacement,
+                               int[][] outcomes) {
+        double wins = 0;
+        for (int k = 0; k < scores.length; k++) {
+            int score = scores[k] + delta(chain, length, old, replacement, outcomes[k]);
+            if (score > bestOpponent[k]) {
+                wins += 1;
+            } else if (score == bestOpponent[k]) {
+                wins += 0.5;
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * Change in score for one outcome when the games in chain switch from old to replacement.
+     */
+    static int delta(int[] chain, int length, int old, int replacement, int[] outcome) {
+        int delta = 0;
+        for (int c = 0; c < length; c++) {
+            int game = chain[c];
+            if (outcome[game] == replacement) {
+                delta += Bracket.pointsFor(game);
+            } else if (outcome[game] == old) {
+                delta -= Bracket.pointsFor(game);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Collects a game and every game above it that the same team is picked to win, like Bracket.removeAbove.
+     * @return number of games written to chain
+     */
+    static int chainOf(int[] picks, int game, int[] chain) {
+        int length = 0;
+        int team = picks[game];
+        for (int node = game; ; node = (node - 1) / 2) {
+            chain[length++] = node;
+            if (node == 0 || picks[(node - 1) / 2] != team) {
+                return length;
+            }
+        }
+    }
+
+    /**
+     * @return the team that came up the other side of a game from the current pick
+     */
+    static int otherTeam(int[] picks, int game) {
+        int left = 2 * game + 1;
+        int right = 2 * game + 2;
+        int leftTeam = left < NUM_OF_GAMES ? picks[left] : left - NUM_OF_GAMES;
+        int rightTeam = right < NUM_OF_GAMES ? picks[right] : right - NUM_OF_GAMES;
+        return picks[game] == leftTeam ? rightTeam : leftTeam;
+    }
+
+    /**
+     * Walks back down from a node, giving each child the team that maximised it.
+     */
+    private static void fill(double[][] best, int[] picks, int node, int team) {
+        picks[node] = team;
+        int left = 2 * node + 1;
+        int right = 2 * node + 2;
+        if (left >= NUM_OF_GAMES) {
+            return;
+        }
+        boolean fromLeft = team < AdvancementCalculator.firstTeam(right);
+        fill(best, picks, left, fromLeft ? team : argMax(best[left], left));
+        fill(best, picks, right, fromLeft ? argMax(best[right], right) : team);
+    }
+
+    private static double max(double[] values, int node) {
+        return values[argMax(values, node)];
+    }
+
+    /**
+     * @return the team under a node with the largest value
+     */
+    private static int argMax(double[] values, int node) {
+        int first = AdvancementCalculator.firstTeam(node);
+        int best = first;
+        for (int t = first + 1; t < first + AdvancementCalculator.subtreeWidth(node); t++) {
+            if (values[t] > values[best]) {
+                best = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Converts a bracket's game picks to starting bracket indices, -1 where nothing is picked.
+     */
+    private static int[] positionsOf(Bracket b) {
+        int[] picks = new int[NUM_OF_GAMES];
+        for (int i = 0; i < NUM_OF_GAMES; i++) {
+            picks[i] = -1;
+            int id = b.getTeamId(i);
+            for (int t = 0; t < NUM_OF_TEAMS && id != TeamTable.EMPTY; t++) {
+                if (b.getTeamId(NUM_OF_GAMES + t) == id) {
+                    picks[i] = t;
+                    break;
+                }
+            }
+        }
+        return picks;
+    }
+
+    /**
+     * Builds a bracket on top of the starting teams with the given game picks.
+     */
+    private static Bracket toBracket(Bracket starting, int[] picks, String user) {
+        byte[] slots = new byte[NUM_OF_NODES];
+        for (int i = 0; i < NUM_OF_NODES; i++) {
+            int position = i < NUM_OF_GAMES ? NUM_OF_GAMES + picks[i] : i;
+            slots[i] = (byte) starting.getTeamId(position);
+        }
+        return new Bracket(starting.getTeamTable(), slots, user);
+    }
+}
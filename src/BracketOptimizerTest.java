@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks {@link BracketOptimizer} against slow, obvious versions of what it does.
+ * maxExpectedScore must match the best of every possible bracket of a small subtree, with the games
+ * outside it made worthless so the subtree is all that counts. The score change maxWinProbability
+ * works out for a flip must match rescoring the flipped bracket from scratch, and its result must be
+ * a bracket no single flip improves on.
+ */
+public class BracketOptimizerTest {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_TEAMS = 64;
+    /** Root of the subtree searched by brute force: one region, 15 games */
+    private static final int SUBTREE = 3;
+
+    public static void main(String[] args) {
+        try {
+            TournamentInfo info = new TournamentInfo();
+            Bracket starting = new Bracket(info.loadStartingBracket());
+            SplittableRandom rng = new SplittableRandom(args.length > 0 ? Long.parseLong(args[0]) : 7);
+            boolean passed = true;
+
+            // the seed model's odds, then made-up odds where any team can be the favourite
+            double[][] modelReach = new TournamentSimulator(info, starting).reachProbabilities();
+            passed &= checkExpected(starting, modelReach, "seed model");
+            for (int trial = 0; trial < 5; trial++) {
+                passed &= checkExpected(starting, randomReach(rng), "random odds " + trial);
+            }
+
+            passed &= checkDeltas(rng);
+            passed &= checkWinProbability(info, starting, rng);
+
+            System.out.println(passed ? "PASS" : "FAIL");
+        }
+        catch (IOException e) {
+            System.out.println("File not found");
+        }
+    }
+
+    /**
+     * Compares the optimizer's best expected score with every one of the 2^15 brackets of the subtree.
+     */
+    private static boolean checkExpected(Bracket starting, double[][] reach, String name) {
+        double[][] subtreeOnly = new double[reach.length][];
+        List<Integer> games = new ArrayList<>();
+        for (int node = 0; node < reach.length; node++) {
+            boolean inside = node >= NUM_OF_GAMES || isUnder(node, SUBTREE);
+            subtreeOnly[node] = inside ? reach[node] : new double[NUM_OF_TEAMS];
+            if (inside && node < NUM_OF_GAMES) {
+                games.add(node);
+            }
+        }
+        // deepest games first, so both children of a game are picked before it
+        games.sort((a, b) -> b - a);
+
+        BracketOptimizer optimizer = new BracketOptimizer(subtreeOnly);
+        Bracket best = optimizer.maxExpectedScore(starting, "optimizer");
+        double found = optimizer.expectedScore(best);
+
+        double bruteForce = 0;
+        int[] picks = new int[2 * NUM_OF_GAMES + 1];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            picks[NUM_OF_GAMES + t] = t;
+        }
+        for (int mask = 0; mask < 1 << games.size(); mask++) {
+            double expected = 0;
+            for (int g = 0; g < games.size(); g++) {
+                int game = games.get(g);
+                picks[game] = picks[(mask >>> g & 1) == 0 ? 2 * game + 1 : 2 * game + 2];
+                expected += Bracket.pointsFor(game) * subtreeOnly[game][picks[game]];
+            }
+            bruteForce = Math.max(bruteForce, expected);
+        }
+
+        boolean same = best.isComplete() && Math.abs(found - bruteForce) < 1e-9;
+        System.out.printf("maxExpectedScore, %s: %.6f, brute force over %d brackets %.6f %s%n",
+                name, found, 1 << games.size(), bruteForce, same ? "ok" : "DIFFERENT");
+        return same;
+    }
+
+    /**
+     * For random brackets and outcomes, flips every game and compares the change the optimizer works
+     * out with the difference between scoring both brackets in full.
+     */
+    private static boolean checkDeltas(SplittableRandom rng) {
+        int[] chain = new int[NUM_OF_GAMES];
+        int checked = 0;
+        for (int trial = 0; trial < 200; trial++) {
+            int[] picks = randomPicks(rng);
+            int[] outcome = randomPicks(rng);
+            for (int game = 0; game < NUM_OF_GAMES; game++) {
+                int length = BracketOptimizer.chainOf(picks, game, chain);
+                int old = picks[game];
+                int replacement = BracketOptimizer.otherTeam(picks, game);
+                int[] flipped = picks.clone();
+                for (int c = 0; c < length; c++) {
+                    flipped[chain[c]] = replacement;
+                }
+                if (!isValid(flipped)) {
+                    System.out.println("Flipping game " + game + " left a pick its team never reached");
+                    return false;
+                }
+                int incremental = BracketOptimizer.delta(chain, length, old, replacement, outcome);
+                int rescored = score(flipped, outcome) - score(picks, outcome);
+                if (incremental != rescored) {
+                    System.out.println("Flipping game " + game + " changed the score by " + rescored
+                            + ", not " + incremental);
+                    return false;
+                }
+                checked++;
+            }
+        }
+        System.out.println("delta matches rescoring for " + checked + " flips ok");
+        return true;
+    }
+
+    /**
+     * Climbs against a random field and checks, rescoring from scratch, that the result beats the
+     * field at least as often as where it started and that no single flip would do better.
+     */
+    private static boolean checkWinProbability(TournamentInfo info, Bracket starting, SplittableRandom rng) {
+        List<Bracket> players = new ArrayList<>();
+        for (int p = 0; p < 30; p++) {
+            players.add(toBracket(starting, randomPicks(rng), "player" + p));
+        }
+        BracketColumns field = new BracketColumns(starting.getTeamTable(), players);
+        TournamentSimulator simulator = new TournamentSimulator(info, starting);
+        int[][] outcomes = simulator.sampleOutcomes(2000, 19);
+        BracketOptimizer optimizer = new BracketOptimizer(simulator.reachProbabilities());
+
+        int[] bestOpponent = new int[outcomes.length];
+        for (Bracket b : players) {
+            int[] picks = positionsOf(starting, b);
+            for (int k = 0; k < outcomes.length; k++) {
+                bestOpponent[k] = Math.max(bestOpponent[k], score(picks, outcomes[k]));
+            }
+        }
+
+        int[] start = positionsOf(starting, optimizer.maxExpectedScore(starting, "optimizer"));
+        int[] climbed = positionsOf(starting,
+                optimizer.maxWinProbability(starting, field, outcomes, 1000, "optimizer"));
+        double startWins = wins(start, outcomes, bestOpponent);
+        double climbedWins = wins(climbed, outcomes, bestOpponent);
+        boolean passed = climbedWins >= startWins;
+        System.out.printf("maxWinProbability: wins %.1f of %d, from %.1f %s%n", climbedWins, outcomes.length,
+                startWins, passed ? "ok" : "WORSE");
+
+        int[] chain = new int[NUM_OF_GAMES];
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            int length = BracketOptimizer.chainOf(climbed, game, chain);
+            int replacement = BracketOptimizer.otherTeam(climbed, game);
+            int[] flipped = climbed.clone();
+            for (int c = 0; c < length; c++) {
+                flipped[chain[c]] = replacement;
+            }
+            double flippedWins = wins(flipped, outcomes, bestOpponent);
+            if (flippedWins > climbedWins) {
+                System.out.println("Flipping game " + game + " still wins " + flippedWins + " of " + outcomes.length);
+                passed = false;
+            }
+        }
+        return passed;
+    }
+
+    /** Outcomes the picks finish first in, a tie for first counting half */
+    private static double wins(int[] picks, int[][] outcomes, int[] bestOpponent) {
+        double wins = 0;
+        for (int k = 0; k < outcomes.length; k++) {
+            int score = score(picks, outcomes[k]);
+            if (score > bestOpponent[k]) {
+                wins += 1;
+            } else if (score == bestOpponent[k]) {
+                wins += 0.5;
+            }
+        }
+        return wins;
+    }
+
+    private static int score(int[] picks, int[] outcome) {
+        int score = 0;
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            if (picks[game] == outcome[game]) {
+                score += Bracket.pointsFor(game);
+            }
+        }
+        return score;
+    }
+
+    /** Every game picked at random from the two teams that came up to it */
+    private static int[] randomPicks(SplittableRandom rng) {
+        int[] picks = new int[NUM_OF_GAMES];
+        for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+            picks[game] = teamAt(picks, 2 * game + 1 + rng.nextInt(2));
+        }
+        return picks;
+    }
+
+    /** True if every pick came up from one of the game's two children */
+    private static boolean isValid(int[] picks) {
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            if (picks[game] != teamAt(picks, 2 * game + 1) && picks[game] != teamAt(picks, 2 * game + 2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int teamAt(int[] picks, int node) {
+        return node < NUM_OF_GAMES ? picks[node] : node - NUM_OF_GAMES;
+    }
+
+    private static boolean isUnder(int node, int root) {
+        while (node > root) {
+            node = (node - 1) / 2;
+        }
+        return node == root;
+    }
+
+    /** Probabilities that follow the tree from random pairwise odds */
+    private static double[][] randomReach(SplittableRandom rng) {
+        double[][] winProbability = new double[NUM_OF_TEAMS][NUM_OF_TEAMS];
+        for (int a = 0; a < NUM_OF_TEAMS; a++) {
+            winProbability[a][a] = 0.5;
+            for (int b = a + 1; b < NUM_OF_TEAMS; b++) {
+                winProbability[a][b] = rng.nextDouble();
+                winProbability[b][a] = 1 - winProbability[a][b];
+            }
+        }
+        return AdvancementCalculator.reachProbabilities(winProbability);
+    }
+
+    private static Bracket toBracket(Bracket starting, int[] picks, String player) {
+        Bracket b = new Bracket(starting, player);
+        for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+            int left = 2 * game + 1;
+            b.moveTeamUp(teamAt(picks, left) == picks[game] ? left : left + 1);
+        }
+        return b;
+    }
+
+    private static int[] positionsOf(Bracket starting, Bracket b) {
+        int[] picks = new int[NUM_OF_GAMES];
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            while (starting.getTeamId(NUM_OF_GAMES + picks[game]) != b.getTeamId(game)) {
+                picks[game]++;
+            }
+        }
+        return picks;
+    }
+}
@@ -21,7 +21,6 @@ import javafx.scene.text.TextAlignment;
 import javafx.scene.layout.Region;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 
 
 /**
@@ -29,17 +28,17 @@ import java.util.HashMap;
  * It allows users to interact with the bracket, including simulating matches and displaying team information.
  * The BracketPane is responsible for initializing the bracket, handling user interactions, and updating the bracket.
  * The class is designed to work in conjunction with the Bracket, Team, and TournamentInfo classes.
+ * Regions are only built the first time they are shown, and the same nodes are reused when another
+ * bracket is bound with setBracket, so switching users doesn't rebuild the scene graph.
  * Created by Richard and Ricardo on 5/3/17. Updated by Dorin Tihon 04/04/2023.
  */
 public class BracketPane extends BorderPane {
-        /**
-         * Reference to the graphical representation of the nodes within the bracket.
-         */
-        private static ArrayList<BracketNode> nodes;
-        /**
-         * Maps the text "buttons" to its respective grid-pane
-         */
-        private HashMap<StackPane, Pane> panes;
+        /** Number of regions, each shown by its own BracketTree */
+        private static final int NUM_OF_REGIONS = 4;
+        /** Highlight shown while the mouse is over a team, shared by every node */
+        private static final InnerShadow NODE_HIGHLIGHT = new InnerShadow(10, Color.DARKBLUE);
+        /** Highlight shown while the mouse is over a region button, shared by every button */
+        private static final InnerShadow BUTTON_HIGHLIGHT = new InnerShadow(10, Color.GREENYELLOW);
         /**
          * Reference to the current bracket.
          */
@@ -49,15 +48,25 @@ public class BracketPane extends BorderPane {
          */
         private int displayedSubtree;
         /**
-         * Important logical simplification for allowing for code that is easier
-         * to maintain.
+         * Maps an index in the bracket to the `BracketNode` showing it, null until its region is built.
+         */
+        private BracketNode[] nodeMap;
+        /**
+         * The region trees, each built the first time it is shown.
+         */
+        private BracketTree[] roots;
+        /**
+         * The final four nodes, built the first time the full bracket is shown.
+         */
+        private Pane finalPane;
+        /**
+         * The grid of region buttons shown first.
          */
-        private HashMap<BracketNode, Integer> bracketMap;
+        private GridPane buttonGrid;
         /**
-         * The `nodeMap` is the reverse mapping of the `bracketMap`; it maps an index in the bracket
-         * to its corresponding `BracketNode`.
+         * Shows the chosen region, or the full bracket, in the center.
          */
-        private HashMap<Integer, BracketNode> nodeMap;
+        private ScrollPane regionView;
 
         /**
          * The `center` field is a `GridPane` that is used as the center of the bracket display.
@@ -66,9 +75,12 @@ public class BracketPane extends BorderPane {
 
         /**
          * The `fullPane` field is a `GridPane` that is the full bracket display, including the
-         * `center` and any other necessary components.
+         * `center` and any other necessary components. Built the first time it is shown.
          */
         private GridPane fullPane;
+        /** The halves of fullPane that hold the left and right regions */
+        private GridPane leftRegions;
+        private GridPane rightRegions;
 
         /** Handles mouseExited events for BracketNode objects */
         private EventHandler<MouseEvent> exit;
@@ -82,10 +94,8 @@ public class BracketPane extends BorderPane {
          */
         public BracketPane() {
                 // Initialize instance variables with default values
-                nodes = new ArrayList<>();
-                panes = new HashMap<>();
-                bracketMap = new HashMap<>();
-                nodeMap = new HashMap<>();
+                nodeMap = new BracketNode[127];
+                roots = new BracketTree[NUM_OF_REGIONS];
                 displayedSubtree = 0;
 
                 // Create an empty Bracket instance for currentBracket
@@ -93,7 +103,9 @@ public class BracketPane extends BorderPane {
 
                 // Initialize other instance variables as needed
                 center = new GridPane();
-                fullPane = new GridPane();
+                regionView = new ScrollPane();
+                center.add(regionView, 0, 0);
+                center.setAlignment(Pos.CENTER);
 
                 // initialize mouseEvent handlers
                 exit = this::handleExit;
@@ -112,14 +124,7 @@ public class BracketPane extends BorderPane {
                 this.currentBracket = currentBracket;
 
                 ArrayList<StackPane> buttons = createButtons();
-                ArrayList<BracketTree> roots = createRoots(buttons);
-                Pane finalPane = createFinalFour();
-                fullPane = createFullPane(roots, finalPane);
-
-                GridPane buttonGrid = initButtonGrid(buttons);
-
-                panes.put(buttons.get((buttons.size() - 1)), fullPane);
-                finalPane.toBack();
+                buttonGrid = initButtonGrid(buttons);
 
                 // set default center to the button grid
                 this.setCenter(buttonGrid);
@@ -135,13 +140,12 @@ public class BracketPane extends BorderPane {
                 //conditional added by matt 5/7 to differentiate between left and right mouse click
                 if (event.getButton().equals(MouseButton.PRIMARY)) {
                         BracketNode n = (BracketNode) event.getSource();
-                        int treeNum = bracketMap.get(n);
+                        int treeNum = n.getIndex();
                         int nextTreeNum = (treeNum - 1) / 2;
-                        if (!nodeMap.get(nextTreeNum).getName().equals(n.getName())) {
+                        if (!currentBracket.getTeamName(nextTreeNum).equals(currentBracket.getTeamName(treeNum))) {
                                 currentBracket.removeAbove((nextTreeNum));
-                                clearAbove(treeNum);
-                                nodeMap.get((bracketMap.get(n) - 1) / 2).setName(n.getName());
                                 currentBracket.moveTeamUp(treeNum);
+                                refreshAbove(treeNum);
                         }
                 }
                 //added by matt 5/7, shows the teams info if you right-click
@@ -150,17 +154,19 @@ public class BracketPane extends BorderPane {
 
                         String text = "";
                         BracketNode n = (BracketNode) event.getSource();
-                        int treeNum = bracketMap.get(n);
-                        String teamName = currentBracket.getBracket().get(treeNum);
+                        String teamName = currentBracket.getTeamName(n.getIndex());
+                        Team t = null;
                         try {
-                                TournamentInfo info = new TournamentInfo();
-                                Team t = info.getTeam(teamName);
+                                t = TeamRegistry.getInstance().getTeam(currentBracket, n.getIndex());
+                        } catch (IOException e) {//if for some reason the team files aren't loading, it will display info not found
+                        }
+                        if (t != null) {
                                 //by Tyler - added the last two pieces of info to the pop-up window
                                 text += "Team: " + teamName + " | Ranking: " + t.getRanking() + "\nMascot: "
                                         + t.getNickname() + "\nInfo: " + t.getInfo() + "\nAverage Offensive PPG: "
                                         + t.getOffensePPG() + "\nAverage Defensive PPG: "+ t.getDefensePPG();
-                        } catch (IOException e) {//if for some reason TournamentInfo isn't working, it will display info not found
-                                text += "Info for " + teamName + "not found";
+                        } else {
+                                text += "Info for " + teamName + " not found";
                         }
                         //create a popup with the team info
                         Alert alert = new Alert(Alert.AlertType.CONFIRMATION, text, ButtonType.CLOSE);
@@ -177,7 +183,7 @@ public class BracketPane extends BorderPane {
          */
         private void handleEnter(MouseEvent event) {
                 BracketNode tmp = (BracketNode) event.getSource();
-                tmp.setEffect(new InnerShadow(10, Color.DARKBLUE));
+                tmp.setEffect(NODE_HIGHLIGHT);
         }
 
         /**
@@ -191,14 +197,32 @@ public class BracketPane extends BorderPane {
         }
 
         /**
-         * Clears the entries of a team future wins
-         * @param treeNum the tree number to start clearing from
+         * Brings the nodes above a pick up to date with the bracket after a team is moved up,
+         * the only places a pick can change.
+         * @param treeNum the tree number of the team that was picked
          */
-        private void clearAbove(int treeNum) {
-                int nextTreeNum = (treeNum - 1) / 2;
-                if (!nodeMap.get(nextTreeNum).getName().isEmpty()) {
-                        nodeMap.get(nextTreeNum).setName("");
-                        clearAbove(nextTreeNum);
+        private void refreshAbove(int treeNum) {
+                for (int i = treeNum; i > 0; ) {
+                        i = (i - 1) / 2;
+                        refreshNode(i);
+                }
+        }
+
+        /**
+         * Brings every built node up to date with the bracket.
+         */
+        private void refreshAll() {
+                for (int i = 0; i < nodeMap.length; i++) {
+                        refreshNode(i);
+                }
+        }
+
+        /**
+         * Shows the bracket's team at one index, if that node has been built.
+         */
+        private void refreshNode(int index) {
+                if (nodeMap[index] != null) {
+                        nodeMap[index].setName(currentBracket.getTeamName(index));
                 }
         }
 
@@ -206,18 +230,59 @@ public class BracketPane extends BorderPane {
          * Clears the current subtree from the displayed subtree.
          */
         public void clear(){
+                // a region's winner has also been moved up into the final four, take it out of there too
+                if (displayedSubtree != 0) {
+                        currentBracket.removeAbove(displayedSubtree);
+                }
                 clearSubtree(displayedSubtree);
         }
 
         /**
-         * Gets the full pane containing the entire bracket.
+         * Gets the full pane containing the entire bracket, building any region not built yet.
          *
          * @return fullPane, a GridPane that contains the entire bracket.
          */
         public GridPane getFullPane() {
+                if (fullPane == null) {
+                        finalPane = createFinalFour();
+                        fullPane = createFullPane(finalPane);
+                        finalPane.toBack();
+                }
+                // a region shown on its own has been moved out of the full pane, put it back
+                for (int m = 0; m < NUM_OF_REGIONS; m++) {
+                        BracketTree tree = getRoot(m);
+                        GridPane half = m < 2 ? leftRegions : rightRegions;
+                        if (tree.getParent() != half) {
+                                half.add(tree, 0, m % 2);
+                        }
+                }
                 return fullPane;
         }
 
+        /**
+         * @param m the region, 0-3 in the order of the buttons
+         * @return the region's tree, built the first time it is asked for
+         */
+        private BracketTree getRoot(int m) {
+                if (roots[m] == null) {
+                        roots[m] = new BracketTree(BracketLayout.STANDARD.regionRoot(NUM_OF_REGIONS, m));
+                }
+                return roots[m];
+        }
+
+        /**
+         * Shows one region, or the full bracket, in the center.
+         * @param m the region, 0-3, or NUM_OF_REGIONS for the full bracket
+         */
+        private void showRegion(int m) {
+                Pane shown = m < NUM_OF_REGIONS ? getRoot(m) : getFullPane();
+                displayedSubtree = m < NUM_OF_REGIONS ? BracketLayout.STANDARD.regionRoot(NUM_OF_REGIONS, m) : 0;
+                // clear first so the content is re-added even if it was taken back by the full pane
+                regionView.setContent(null);
+                regionView.setContent(shown);
+                setCenter(center);
+        }
+
         /**
          * Adds event listeners to the region selection buttons
          * This allows hovering over a region button to alter the color, creating a highlight effect.
@@ -225,19 +290,16 @@ public class BracketPane extends BorderPane {
          * @param buttons The list of region buttons
          */
         private void addEventListeners(ArrayList<StackPane> buttons) {
-                for (StackPane t : buttons) {
+                for (int m = 0; m < buttons.size(); m++) {
+                        StackPane t = buttons.get(m);
+                        int region = m;
                         t.setOnMouseEntered(mouseEvent -> {
-                                t.setEffect(new InnerShadow(10, Color.GREENYELLOW));
+                                t.setEffect(BUTTON_HIGHLIGHT);
                         });
                         t.setOnMouseExited(mouseEvent -> {
                                 t.setEffect(null);
                         });
-                        t.setOnMouseClicked(mouseEvent -> {
-                                setCenter(null);
-                                center.add(new ScrollPane(panes.get(t)), 0, 0);
-                                center.setAlignment(Pos.CENTER);
-                                setCenter(center);
-                        });
+                        t.setOnMouseClicked(mouseEvent -> showRegion(region));
                 }
         }
 
@@ -259,49 +321,27 @@ public class BracketPane extends BorderPane {
         }
 
         /**
-         * The `createFullPane` method creates the full `GridPane` that contains the bracket trees and
-         * final four bracket node `Pane`. The bracket trees and final four `Pane` are added to the full
-         * `GridPane` in the appropriate layout. The full `GridPane` is aligned to the center.
+         * The `createFullPane` method creates the full `GridPane` that holds the final four bracket node
+         * `Pane` between two halves, which getFullPane fills with the bracket trees. The left half holds the
+         * first two regions and the right half the other two, mirrored. The full `GridPane` is aligned to the center.
          *
-         * @param roots - the list of bracket trees
          * @param finalPane - the final four bracket node `Pane`
          *
          * @return - the full `GridPane`
          */
-        private GridPane createFullPane(ArrayList<BracketTree> roots, Pane finalPane) {
+        private GridPane createFullPane(Pane finalPane) {
                 GridPane fullPane = new GridPane();
-                GridPane gp1 = new GridPane();
-                gp1.add(roots.get(0), 0, 0);
-                gp1.add(roots.get(1), 0, 1);
-                GridPane gp2 = new GridPane();
-                gp2.add(roots.get(2), 0, 0);
-                gp2.add(roots.get(3), 0, 1);
-                gp2.setNodeOrientation(NodeOrientation.RIGHT_TO_LEFT);
-                fullPane.add(gp1, 0, 0);
+                leftRegions = new GridPane();
+                rightRegions = new GridPane();
+                rightRegions.setNodeOrientation(NodeOrientation.RIGHT_TO_LEFT);
+                fullPane.add(leftRegions, 0, 0);
                 fullPane.add(finalPane, 1, 0, 1, 2);
-                fullPane.add(gp2, 2, 0);
+                fullPane.add(rightRegions, 2, 0);
                 fullPane.setAlignment(Pos.CENTER);
 
                 return fullPane;
         }
 
-        /**
-         * The `createRoots` method creates the bracket trees and adds them to the `roots` list.
-         * The `panes` map is updated with the buttons and their corresponding bracket trees.
-         *
-         * @param buttons - the list of buttons
-         *
-         * @return - the list of bracket trees
-         */
-        public ArrayList<BracketTree> createRoots(ArrayList<StackPane> buttons){
-                ArrayList<BracketTree> roots = new ArrayList<>();
-                for (int m = 0; m < buttons.size() - 1; m++) {
-                        roots.add(new BracketTree(3 + m));
-                        panes.put(buttons.get(m), roots.get(m));
-                }
-                return roots;
-        }
-
         /**
          * The `createButtons` method creates the buttons and adds them to the `buttons` list.
          *
@@ -318,38 +358,36 @@ public class BracketPane extends BorderPane {
         }
 
         /**
-         * Helpful method to retrieve our magical numbers
+         * Lists the nodes of one level of a region, left to right.
          *
-         * @param root the root node (3,4,5,6)
-         * @param pos  the position in the tree (8 (16) , 4 (8) , 2 (4) , 1 (2))
+         * @param root the root node of the region (3,4,5,6)
+         * @param pos  half the number of nodes wanted: 8 for the 16 teams, 4, 2 or 1 for the 2 teams in the final
          * @return The list representing the valid values.
          */
         public ArrayList<Integer> helper(int root, int pos) {
                 ArrayList<Integer> positions = new ArrayList<>();
-                int base = 0;
-                int tmp = (root * 2) + 1;
-                if (pos == 8) {
-                        base = 3;
-                }else if (pos == 4) {
-                        base = 2;
-                }else if (pos == 2) {
-                        base = 1;
-                }
-                for (int i = 0; i < base; i++) {
-                        tmp = (tmp * 2) + 1;
-                }
+                // the 2 * pos nodes that many levels below root are numbered on from (root + 1) * 2 * pos - 1
+                int first = (root + 1) * pos * 2 - 1;
                 for (int j = 0; j < pos * 2; j++) {
-                        positions.add(tmp + j);
+                        positions.add(first + j);
                 }
-                return positions; //                while ((tmp = ((location * 2) + 1)) <= 127) ;
+                return positions;
         }
 
         /**
-         * Sets the current bracket to,
+         * Sets the current bracket to, reusing the nodes already built to show it
+         * and going back to the region buttons.
          * @param target The bracket to replace currentBracket
          */
         public void setBracket(Bracket target) {
                 currentBracket = target;
+                displayedSubtree = 0;
+                // the full pane is disabled while it shows the simulation, a new bracket can be edited again
+                if (fullPane != null) {
+                        fullPane.setDisable(false);
+                }
+                refreshAll();
+                setCenter(buttonGrid);
         }
 
         /**
@@ -358,6 +396,7 @@ public class BracketPane extends BorderPane {
          */
         public void clearSubtree(int position) {
                 currentBracket.resetSubtree(position);
+                refreshAll();
         }
 
         /**
@@ -415,15 +454,15 @@ public class BracketPane extends BorderPane {
          * @return - the initialized bracket node
          */
         private BracketNode initializeBracketNode(int x, int y, int index) {
-                BracketNode node = new BracketNode(currentBracket.getBracket().get(index), x, y, 70, 0);
+                BracketNode node = new BracketNode(currentBracket.getTeamName(index), x, y, 70, 0);
 
                 node.setOnMouseClicked(clicked);
                 node.setOnMouseDragEntered(enter);
                 node.setOnMouseDragExited(exit);
                 node.setStyle("-fx-border-color: red");
 
-                bracketMap.put(node, index);
-                nodeMap.put(index, node);
+                node.setIndex(index);
+                nodeMap[index] = node;
 
                 return node;
         }
@@ -433,6 +472,8 @@ public class BracketPane extends BorderPane {
          */
         private class BracketTree extends Pane {
                 private int location;
+                /** The nodes of this region */
+                private ArrayList<BracketNode> nodes = new ArrayList<>();
 
                 public BracketTree(int location) {
                         this.location = location;
@@ -465,8 +506,7 @@ public class BracketPane extends BorderPane {
                 /**
                  * The `createSingleNode` method creates a single bracket node and adds it to the `nodes` list,
                  * as well as the `getChildren` list. The bracket node's name is set to the value at the current
-                 * `location` in the `currentBracket` bracket. The `bracketMap` and `nodeMap` are also updated
-                 * with the new node and its index.
+                 * `location` in the `currentBracket` bracket. The node is also given its index and added to `nodeMap`.
                  *
                  * @param x - the x coordinate of the bracket node
                  * @param y - the y coordinate of the bracket node
@@ -476,9 +516,9 @@ public class BracketPane extends BorderPane {
                         BracketNode last = new BracketNode("", x, y - 20, offsetX, 20);
                         nodes.add(last);
                         getChildren().addAll(new Line(x, y, x + offsetX, y), last);
-                        last.setName(currentBracket.getBracket().get(location));
-                        bracketMap.put(last, location);
-                        nodeMap.put(location, last);
+                        last.setName(currentBracket.getTeamName(location));
+                        last.setIndex(location);
+                        nodeMap[location] = last;
                 }
 
                 /**
@@ -524,9 +564,8 @@ public class BracketPane extends BorderPane {
 
                 /**
 
-                 The updateNodes method sets the names of the bracket nodes in the nodeList and updates the
-                 bracketMap and nodeMap with the new nodes and their indices. The indices of the nodes are
-                 obtained using the helper method.
+                 The updateNodes method sets the names and indices of the bracket nodes in the nodeList and
+                 adds them to nodeMap. The indices of the nodes are obtained using the helper method.
                  @param nodeList - the list of bracket nodes to update
                  @param location - the location in the bracket to start updating from
                  @param num - the number of bracket nodes to update
@@ -536,9 +575,9 @@ public class BracketPane extends BorderPane {
                         for (int i = 0; i < nodeList.size(); i++) {
                                 BracketNode node = nodeList.get(i);
                                 int index = indices.get(i);
-                                node.setName(currentBracket.getBracket().get(index));
-                                bracketMap.put(node, index);
-                                nodeMap.put(index, node);
+                                node.setName(currentBracket.getTeamName(index));
+                                node.setIndex(index);
+                                nodeMap[index] = node;
                         }
                 }
         }
@@ -547,6 +586,8 @@ public class BracketPane extends BorderPane {
          * The BracketNode model for the Graphical display of the "Bracket"
          */
         private class BracketNode extends Pane {
+                /** Index in the bracket this node shows */
+                private int index;
                 private String teamName;
                 private Rectangle rect;
                 private Label name;
@@ -583,11 +624,21 @@ public class BracketPane extends BorderPane {
                 }
 
                 /**
-                 * @param teamName The name to assign to the node.
+                 * @param teamName The name to assign to the node. The label is left alone if it already shows it.
                  */
                 public void setName(String teamName) {
-                        this.teamName = teamName;
-                        name.setText(teamName);
+                        if (!teamName.equals(this.teamName)) {
+                                this.teamName = teamName;
+                                name.setText(teamName);
+                        }
+                }
+
+                public int getIndex() {
+                        return index;
+                }
+
+                public void setIndex(int index) {
+                        this.index = index;
                 }
         }
 }
\ No newline at end of file
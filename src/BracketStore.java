@@ -0,0 +1,312 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Single file holding every player's bracket as a fixed-size record, replacing one .ser file per player.
+ * The file is memory-mapped; opening it only reads the player names to build an index, and loading or
+ * saving a bracket touches just that player's record.
+ *
+ * Layout: a HEADER_SIZE byte header (magic, version, record count, team count and the team names the
+ * ids refer to) followed by RECORD_SIZE byte records of name, password, the 127 team ids and a flags byte.
+ */
+public class BracketStore implements Closeable {
+    /** Identifies a bracket store file, "MMBS" */
+    private static final int MAGIC = 0x4D4D4253;
+    private static final int VERSION = 1;
+    /** Bytes reserved for the header, including the team names */
+    private static final int HEADER_SIZE = 4096;
+    /** Bytes of one bracket record */
+    private static final int RECORD_SIZE = 256;
+    /** Longest player name or password that fits in a record, in UTF-8 bytes */
+    public static final int MAX_TEXT_BYTES = 63;
+    /** Offsets of the fields inside a record */
+    private static final int NAME_OFFSET = 0;
+    private static final int PASSWORD_OFFSET = 64;
+    private static final int SLOTS_OFFSET = 128;
+    private static final int FLAGS_OFFSET = 255;
+    /** Flag bit set once a player has finalized their bracket */
+    private static final byte FINALIZED = 1;
+    private static final int NUM_OF_SLOTS = 127;
+    /** Offset of the record count inside the header */
+    private static final int COUNT_OFFSET = 8;
+    /** Records added each time the file has to grow */
+    private static final int GROWTH = 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    /** Table the stored team ids refer to */
+    private final TeamTable teams;
+    /** Player name to record number */
+    private final HashMap<String, Integer> index;
+    private MappedByteBuffer buffer;
+    private int recordCount;
+    /** Bumped on every write, so readers can tell when something they derived from the store is stale */
+    private long version;
+
+    /**
+     * Opens the store, creating an empty one if the file does not exist yet.
+     * @param path the store file
+     * @param teams table of the starting bracket; brackets are stored as ids in this table
+     * @throws IOException if the file can't be read, isn't a bracket store, is truncated or corrupt, or
+     * was written for other teams
+     */
+    public BracketStore(File path, TeamTable teams) throws IOException {
+        this.teams = teams;
+        boolean created = !path.exists() || path.length() == 0;
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        index = new HashMap<>();
+        try {
+            if (created) {
+                map(0);
+                writeHeader();
+            } else {
+                // checked with a plain read first: mapping would grow a short file to the header size
+                if (file.length() < HEADER_SIZE || file.readInt() != MAGIC || file.readInt() != VERSION) {
+                    throw new IOException(path + " is not a bracket store");
+                }
+                map((int) ((file.length() - HEADER_SIZE) / RECORD_SIZE));
+                readHeader(path);
+                for (int r = 0; r < recordCount; r++) {
+                    int offset = recordOffset(r) + NAME_OFFSET;
+                    if (buffer.get(offset) < 0 || buffer.get(offset) > MAX_TEXT_BYTES) {
+                        throw new IOException(path + " has a corrupt name in record " + r);
+                    }
+                    index.put(readText(offset), r);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param text a player name or password
+     * @return true if it is short enough to be stored
+     */
+    public static boolean fits(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length <= MAX_TEXT_BYTES;
+    }
+
+    /**
+     * @return number of brackets in the store
+     */
+    public synchronized int size() {
+        return recordCount;
+    }
+
+    /**
+     * @param playerName owner of the bracket
+     * @return true if the store has a bracket for the player
+     */
+    public synchronized boolean contains(String playerName) {
+        return index.containsKey(playerName);
+    }
+
+    /**
+     * @return every player name in the store, in record order
+     */
+    public synchronized List<String> getPlayerNames() {
+        String[] names = new String[recordCount];
+        for (HashMap.Entry<String, Integer> e : index.entrySet()) {
+            names[e.getValue()] = e.getKey();
+        }
+        return new ArrayList<>(Arrays.asList(names));
+    }
+
+    /**
+     * Reads one player's bracket without touching any other record.
+     * @param playerName owner of the bracket
+     * @return the bracket, or null if the player has none
+     */
+    public synchronized Bracket load(String playerName) {
+        Integer r = index.get(playerName);
+        return r == null ? null : readRecord(r);
+    }
+
+    /**
+     * Reads every bracket in the store.
+     * @return brackets in record order
+     */
+    public synchronized List<Bracket> loadAll() {
+        List<Bracket> list = new ArrayList<>(recordCount);
+        for (int r = 0; r < recordCount; r++) {
+            list.add(readRecord(r));
+        }
+        return list;
+    }
+
+    /**
+     * Writes a bracket, overwriting the player's record in place if there is one and appending otherwise.
+     * @param b the bracket to save; its player name is the key
+     * @throws IOException if the file can't grow
+     * @throws IllegalArgumentException if the name or password is too long, or a team is not in the table
+     */
+    public synchronized void save(Bracket b) throws IOException {
+        String name = b.getPlayerName();
+        String password = b.getPassword() == null ? "" : b.getPassword();
+        if (name == null || name.isEmpty() || !fits(name) || !fits(password)) {
+            throw new IllegalArgumentException("Player name and password must be 1 to " + MAX_TEXT_BYTES + " bytes");
+        }
+        byte[] slots = teams.idsOf(b);
+
+        Integer r = index.get(name);
+        if (r == null) {
+            r = recordCount;
+            if (recordOffset(r + 1) > buffer.capacity()) {
+                map(r + GROWTH);
+            }
+        }
+        int offset = recordOffset(r);
+        writeText(offset + NAME_OFFSET, name);
+        writeText(offset + PASSWORD_OFFSET, password);
+        for (int i = 0; i < NUM_OF_SLOTS; i++) {
+            buffer.put(offset + SLOTS_OFFSET + i, slots[i]);
+        }
+        if (r == recordCount) {
+            buffer.put(offset + FLAGS_OFFSET, (byte) 0);
+            recordCount++;
+            buffer.putInt(COUNT_OFFSET, recordCount);
+            index.put(name, r);
+        }
+        version++;
+    }
+
+    /**
+     * @param playerName owner of the bracket
+     * @return true if the player's bracket has been finalized
+     */
+    public synchronized boolean isFinalized(String playerName) {
+        Integer r = index.get(playerName);
+        return r != null && (buffer.get(recordOffset(r) + FLAGS_OFFSET) & FINALIZED) != 0;
+    }
+
+    /**
+     * Marks a saved bracket as finalized, or opens it for changes again.
+     * @param playerName owner of the bracket
+     * @param finalized the new state
+     * @throws IllegalArgumentException if the player has no saved bracket
+     */
+    public synchronized void setFinalized(String playerName, boolean finalized) {
+        Integer r = index.get(playerName);
+        if (r == null) {
+            throw new IllegalArgumentException("No bracket saved for " + playerName);
+        }
+        int offset = recordOffset(r) + FLAGS_OFFSET;
+        byte flags = buffer.get(offset);
+        buffer.put(offset, (byte) (finalized ? flags | FINALIZED : flags & ~FINALIZED));
+        version++;
+    }
+
+    /**
+     * @return a number that changes whenever a bracket is saved or finalized
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Flushes changes to disk and closes the file.
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+
+    private Bracket readRecord(int r) {
+        int offset = recordOffset(r);
+        byte[] slots = new byte[NUM_OF_SLOTS];
+        for (int i = 0; i < NUM_OF_SLOTS; i++) {
+            slots[i] = buffer.get(offset + SLOTS_OFFSET + i);
+        }
+        Bracket b = new Bracket(teams, slots, readText(offset + NAME_OFFSET));
+        String password = readText(offset + PASSWORD_OFFSET);
+        b.setPassword(password);
+        return b;
+    }
+
+    private static int recordOffset(int r) {
+        return HEADER_SIZE + r * RECORD_SIZE;
+    }
+
+    /**
+     * (Re)maps the file so it has room for the given number of records.
+     */
+    private void map(int records) throws IOException {
+        long size = recordOffset(records);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(COUNT_OFFSET, 0);
+        String[] names = teams.getNames();
+        buffer.putInt(12, names.length);
+        buffer.position(16);
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (buffer.position() + 2 + bytes.length > HEADER_SIZE) {
+                throw new IllegalArgumentException("Team names do not fit in the store header");
+            }
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+    }
+
+    private void readHeader(File path) throws IOException {
+        recordCount = buffer.getInt(COUNT_OFFSET);
+        int capacity = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        if (recordCount < 0 || recordCount > capacity) {
+            throw new IOException(path + " says it holds " + recordCount + " brackets but has room for "
+                    + capacity + ", it is truncated or corrupt");
+        }
+        int teamCount = buffer.getInt(12);
+        if (teamCount < 0 || teamCount > TeamTable.MAX_TEAMS) {
+            throw new IOException(path + " has a corrupt header");
+        }
+        String[] names = new String[teamCount];
+        buffer.position(16);
+        for (int i = 0; i < names.length; i++) {
+            int length = buffer.position() + 2 > HEADER_SIZE ? -1 : buffer.getShort();
+            if (length < 0 || buffer.position() + length > HEADER_SIZE) {
+                throw new IOException(path + " has a corrupt header");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (!Arrays.equals(names, teams.getNames())) {
+            throw new IOException(path + " was saved for a different set of teams");
+        }
+    }
+
+    /** Text fields are one length byte followed by up to MAX_TEXT_BYTES of UTF-8 */
+    private void writeText(int offset, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.put(offset, (byte) bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put(offset + 1 + i, bytes[i]);
+        }
+    }
+
+    private String readText(int offset) {
+        byte[] bytes = new byte[buffer.get(offset)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + 1 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,3 +1,4 @@
+import java.io.IOException;
 import java.util.ArrayList;
 
 /**
@@ -18,5 +19,37 @@ public class BracketTest {
         System.out.println(bracket2.getBracket().get(62));
 
         System.out.println(-1/2);
+
+        // resetSubtree empties the games under a root; the starting teams at 63-126 are not games
+        try {
+            Bracket starting = new Bracket(new TournamentInfo().loadStartingBracket());
+            boolean kept = true;
+            for (int root = 1; root < 63; root++) {
+                Bracket filled = new Bracket(starting);
+                for (int game = 62; game >= 0; game--) {
+                    filled.moveTeamUp(2 * game + 1);
+                }
+                Bracket reset = new Bracket(filled);
+                reset.resetSubtree(root);
+                for (int slot = 0; slot < 127; slot++) {
+                    boolean under = slot < 63 && isUnder(slot, root);
+                    int expected = under ? TeamTable.EMPTY : filled.getTeamId(slot);
+                    if (reset.getTeamId(slot) != expected) {
+                        System.out.println("resetSubtree(" + root + ") changed slot " + slot);
+                        kept = false;
+                    }
+                }
+            }
+            System.out.println("resetSubtree keeps the starting teams: " + kept);
+        } catch (IOException e) {
+            System.out.println("File not found");
+        }
+    }
+
+    private static boolean isUnder(int node, int root) {
+        while (node > root) {
+            node = (node - 1) / 2;
+        }
+        return node == root;
     }
 }
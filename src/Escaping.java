@@ -0,0 +1,40 @@
+/**
+ * Quoting of names for the CSV and JSON written by the CLI, the server and {@link BracketConverter}.
+ * Player and team names are user input, so any of them may hold commas, quotes or line breaks.
+ */
+final class Escaping {
+    private Escaping() {
+    }
+
+    /**
+     * @param s a field value, null read as empty
+     * @return the value as one CSV field, quoted when it holds a comma, quote or line break
+     */
+    static String csv(String s) {
+        if (s == null) {
+            return "";
+        }
+        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
+            return "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+
+    /**
+     * @param s a string, null read as empty
+     * @return the string as a quoted JSON string, with quotes, backslashes and control characters escaped
+     */
+    static String json(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : (s == null ? "" : s).toCharArray()) {
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * Decides how likely one team is to beat another.
+ * {@link TournamentSimulator} asks its model once for a matrix over the 64 starting teams,
+ * then plays every game with one array lookup and one random draw.
+ */
+public interface GameModel {
+    /**
+     * @param a one team
+     * @param b the other team
+     * @return chance that a beats b; winProbability(b, a) is 1 minus this
+     */
+    double winProbability(Team a, Team b);
+
+    /**
+     * Works out every pairing at once. Models that can share work between pairings override this.
+     * @param teams the teams in starting bracket order
+     * @return matrix[a][b] = chance that teams[a] beats teams[b]
+     */
+    default double[][] winMatrix(Team[] teams) {
+        double[][] matrix = new double[teams.length][teams.length];
+        for (int a = 0; a < teams.length; a++) {
+            matrix[a][a] = 0.5;
+            for (int b = a + 1; b < teams.length; b++) {
+                matrix[a][b] = winProbability(teams[a], teams[b]);
+                matrix[b][a] = 1 - matrix[a][b];
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,288 @@
+/**
+ * Standings that follow a real tournament one game at a time.
+ * Each result only touches the players who picked that game's winner (or the team it replaces),
+ * and their places are kept in a Fenwick tree over the possible scores, so a result costs one pass
+ * over a single column of picks plus O(log 192) per affected player instead of rescoring and
+ * re-sorting the whole pool.
+ *
+ * Unlike {@link Bracket#scoreBracket(Bracket)}, games that have not been played yet score nothing.
+ *
+ * Alongside the score it tracks each player's maximum possible score, the points they have plus the
+ * points still on offer from picks whose team hasn't lost. A team losing a game only costs the players
+ * who picked it in that game or the games above it, so that is kept up to date the same way.
+ */
+public class LiveLeaderboard {
+    private static final int NUM_OF_GAMES = 63;
+    /** Highest score a bracket can get */
+    private static final int MAX_SCORE = 192;
+
+    private final BracketColumns pool;
+    /** The real results so far; game slots stay empty until played */
+    private final Bracket results;
+    private final int[] scores;
+    private final int[] maxScores;
+    /** Fenwick tree of how many players have each score, indexed score + 1 */
+    private final int[] scoreCounts = new int[MAX_SCORE + 2];
+    /** Fenwick tree of how many players have each maximum possible score, indexed score + 1 */
+    private final int[] maxScoreCounts = new int[MAX_SCORE + 2];
+    /** Players with each score as doubly linked lists through next/previous, -1 terminated */
+    private final int[] firstWithScore = new int[MAX_SCORE + 1];
+    private final int[] next;
+    private final int[] previous;
+
+    /**
+     * Starts every player on zero with no games played.
+     * @param pool every player's bracket
+     * @param starting the starting bracket, whose first round teams are kept and whose picks are ignored
+     */
+    public LiveLeaderboard(BracketColumns pool, Bracket starting) {
+        this.pool = pool;
+        results = new Bracket(starting);
+        results.resetSubtree(0);
+        for (int region = 3; region <= 6; region++) {
+            results.resetSubtree(region);
+        }
+        int players = pool.size();
+        scores = new int[players];
+        maxScores = new int[players];
+        next = new int[players];
+        previous = new int[players];
+        java.util.Arrays.fill(firstWithScore, -1);
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            byte[] column = pool.getColumn(game);
+            for (int p = 0; p < players; p++) {
+                if (column[p] != TeamTable.EMPTY) {
+                    maxScores[p] += Bracket.pointsFor(game);
+                }
+            }
+        }
+        for (int p = players - 1; p >= 0; p--) {
+            link(p, 0);
+            addCount(scoreCounts, 0, 1);
+            addCount(maxScoreCounts, maxScores[p], 1);
+        }
+    }
+
+    /**
+     * Records the winner of one game. If the game already had a different winner, that result and
+     * every later game already played are taken back first, since they were played by the wrong team.
+     * @param game index of the game slot, 0-62
+     * @param winner name of the winning team; must be one of the two teams that reached the game
+     * @throws IllegalArgumentException if the team is not playing in that game, or the games
+     * before it have not been played
+     */
+    public void applyResult(int game, String winner) {
+        int id = pool.getTeamTable().idOf(winner);
+        int left = 2 * game + 1;
+        int right = 2 * game + 2;
+        int child;
+        if (id != TeamTable.EMPTY && results.getTeamId(left) == id) {
+            child = left;
+        } else if (id != TeamTable.EMPTY && results.getTeamId(right) == id) {
+            child = right;
+        } else {
+            throw new IllegalArgumentException(winner + " is not playing in game " + game);
+        }
+        int loser = results.getTeamId(child == left ? right : left);
+        if (loser == TeamTable.EMPTY) {
+            throw new IllegalArgumentException("Game " + game + " has no opponent yet");
+        }
+        if (results.getTeamId(game) == id) {
+            return;
+        }
+        if (results.getTeamId(game) != TeamTable.EMPTY) {
+            takeBack(game);
+        }
+        results.moveTeamUp(child);
+        award(game, id, Bracket.pointsFor(game));
+        eliminate(game, loser, -1);
+    }
+
+    /**
+     * Takes back the result of one game, along with every played game above it, which its winner played.
+     * Nothing happens if the game has not been played.
+     * @param game index of the game slot, 0-62
+     */
+    public void removeResult(int game) {
+        if (results.getTeamId(game) != TeamTable.EMPTY) {
+            takeBack(game);
+        }
+    }
+
+    /**
+     * Brings the results in line with a master bracket: every game the master has a winner for is
+     * applied from the first round up, and every game played here that the master leaves empty is
+     * taken back. Only the games that differ touch any player.
+     * @param master the real results, built from the same starting bracket as the pool
+     * @throws IllegalArgumentException if the master has a winner that didn't play in the game
+     */
+    public void applyResults(Bracket master) {
+        for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+            if (master.getTeamId(game) == TeamTable.EMPTY) {
+                removeResult(game);
+            } else {
+                applyResult(game, master.getTeamName(game));
+            }
+        }
+    }
+
+    /**
+     * Undoes a game's result along with every played game above it, latest first, so the games
+     * that stay played always lead up from the first round without gaps.
+     */
+    private void takeBack(int game) {
+        if (game > 0 && results.getTeamId((game - 1) / 2) != TeamTable.EMPTY) {
+            takeBack((game - 1) / 2);
+        }
+        int team = results.getTeamId(game);
+        int left = results.getTeamId(2 * game + 1);
+        award(game, team, -Bracket.pointsFor(game));
+        eliminate(game, left == team ? results.getTeamId(2 * game + 2) : left, 1);
+        results.removeAbove(game);
+    }
+
+    /**
+     * Adds points to every player who picked the team at the game.
+     */
+    private void award(int game, int team, int points) {
+        byte[] column = pool.getColumn(game);
+        for (int p = 0; p < column.length; p++) {
+            if (column[p] == team) {
+                unlink(p, scores[p]);
+                addCount(scoreCounts, scores[p], -1);
+                scores[p] += points;
+                addCount(scoreCounts, scores[p], 1);
+                link(p, scores[p]);
+            }
+        }
+    }
+
+    /**
+     * Takes a losing team's remaining games off the maximum possible score of everyone who picked it
+     * there, or with sign 1 gives them back when the loss is taken back.
+     * @param game the game the team lost; every game above it is unplayed
+     */
+    private void eliminate(int game, int team, int sign) {
+        for (int node = game; node >= 0; node = node == 0 ? -1 : (node - 1) / 2) {
+            int points = sign * Bracket.pointsFor(node);
+            byte[] column = pool.getColumn(node);
+            for (int p = 0; p < column.length; p++) {
+                if (column[p] == team) {
+                    addCount(maxScoreCounts, maxScores[p], -1);
+                    maxScores[p] += points;
+                    addCount(maxScoreCounts, maxScores[p], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param player index of the player in the pool
+     * @return points from the games played so far
+     */
+    public int getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * @param player index of the player in the pool
+     * @return 1 plus the number of players with a higher score, so tied players share a place
+     */
+    public int getRank(int player) {
+        return 1 + pool.size() - playersAtOrBelow(scoreCounts, scores[player]);
+    }
+
+    /**
+     * @param player index of the player in the pool
+     * @return points so far plus every remaining game whose picked team is still alive
+     */
+    public int getMaxScore(int player) {
+        return maxScores[player];
+    }
+
+    /**
+     * A player is out of the running for first once winning every pick they have left
+     * still leaves them short of the leader's current score. Tying the leader doesn't count as out.
+     * @param player index of the player in the pool
+     * @return true if the player can no longer finish first
+     */
+    public boolean isEliminated(int player) {
+        return maxScores[player] < getLeaderScore();
+    }
+
+    /**
+     * @return how many players can no longer finish first
+     */
+    public int getEliminatedCount() {
+        int leader = getLeaderScore();
+        return leader == 0 ? 0 : playersAtOrBelow(maxScoreCounts, leader - 1);
+    }
+
+    /**
+     * @return the highest score so far, 0 for an empty pool
+     */
+    public int getLeaderScore() {
+        for (int s = MAX_SCORE; s > 0; s--) {
+            if (firstWithScore[s] >= 0) {
+                return s;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param k number of players wanted
+     * @return indices of the k highest scoring players, best first
+     */
+    public int[] top(int k) {
+        int[] best = new int[Math.min(k, pool.size())];
+        int found = 0;
+        for (int s = MAX_SCORE; s >= 0 && found < best.length; s--) {
+            for (int p = firstWithScore[s]; p >= 0 && found < best.length; p = next[p]) {
+                best[found++] = p;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @return the real results recorded so far
+     */
+    public Bracket getResults() {
+        return new Bracket(results);
+    }
+
+    private static void addCount(int[] counts, int score, int delta) {
+        for (int i = score + 1; i < counts.length; i += i & -i) {
+            counts[i] += delta;
+        }
+    }
+
+    private static int playersAtOrBelow(int[] counts, int score) {
+        int total = 0;
+        for (int i = score + 1; i > 0; i -= i & -i) {
+            total += counts[i];
+        }
+        return total;
+    }
+
+    private void link(int player, int score) {
+        previous[player] = -1;
+        next[player] = firstWithScore[score];
+        if (next[player] >= 0) {
+            previous[next[player]] = player;
+        }
+        firstWithScore[score] = player;
+    }
+
+    private void unlink(int player, int score) {
+        if (previous[player] >= 0) {
+            next[previous[player]] = next[player];
+        } else {
+            firstWithScore[score] = next[player];
+        }
+        if (next[player] >= 0) {
+            previous[next[player]] = previous[player];
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Plays random results into a {@link LiveLeaderboard}, changing and taking back earlier ones along the
+ * way, and after every step checks each player's score and rank against scoring their bracket in full
+ * with {@link Bracket#scoreBracket(Bracket)} against the results so far. Some players leave games
+ * unpicked, as a bracket still being filled in does.
+ *
+ * The maximum possible scores and eliminations are checked the same way, worked out from scratch: a
+ * player can still get every unplayed game whose pick hasn't lost a game yet, and is out once that
+ * leaves them below the leader.
+ */
+public class LiveLeaderboardTest {
+    private static final int NUM_OF_GAMES = 63;
+
+    public static void main(String[] args) {
+        try {
+            Bracket starting = new Bracket(new TournamentInfo().loadStartingBracket());
+            int players = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+            int steps = args.length > 1 ? Integer.parseInt(args[1]) : 3000;
+            SplittableRandom rng = new SplittableRandom(args.length > 2 ? Long.parseLong(args[2]) : 12);
+
+            List<Bracket> brackets = new ArrayList<>();
+            for (int p = 0; p < players; p++) {
+                Bracket b = new Bracket(starting, "player" + p);
+                for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+                    b.moveTeamUp(2 * game + 1 + rng.nextInt(2));
+                }
+                if (p % 10 == 0) {
+                    b.removeAbove(1 + rng.nextInt(NUM_OF_GAMES - 1));
+                }
+                brackets.add(b);
+            }
+            BracketColumns pool = new BracketColumns(starting.getTeamTable(), brackets);
+            LiveLeaderboard live = new LiveLeaderboard(pool, starting);
+
+            // the results as the test sees them: starting teams at the leaves, games empty until played
+            byte[] results = new byte[2 * NUM_OF_GAMES + 1];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = i < NUM_OF_GAMES ? TeamTable.EMPTY : (byte) starting.getTeamId(i);
+            }
+
+            boolean passed = check(live, brackets, starting, results, "start");
+            int takeBacks = 0;
+            int changes = 0;
+            for (int step = 0; step < steps && passed; step++) {
+                int game = rng.nextInt(NUM_OF_GAMES);
+                if (results[game] != TeamTable.EMPTY && rng.nextInt(4) == 0) {
+                    live.removeResult(game);
+                    clearUp(results, game);
+                    takeBacks++;
+                } else if (results[2 * game + 1] != TeamTable.EMPTY && results[2 * game + 2] != TeamTable.EMPTY) {
+                    byte winner = results[2 * game + 1 + rng.nextInt(2)];
+                    if (results[game] != TeamTable.EMPTY && results[game] != winner) {
+                        clearUp(results, game);
+                        changes++;
+                    }
+                    live.applyResult(game, starting.getTeamTable().nameOf(winner));
+                    results[game] = winner;
+                } else {
+                    continue;
+                }
+                passed = check(live, brackets, starting, results, "step " + step);
+            }
+
+            // a finished master bracket applied over whatever is left gives the same as scoring it outright
+            Bracket master = new Bracket(starting);
+            new TournamentInfo().simulate(master, 5);
+            live.applyResults(master);
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                results[i] = (byte) master.getTeamId(i);
+            }
+            passed = passed && check(live, brackets, starting, results, "master");
+
+            System.out.println(players + " players, " + steps + " steps, " + changes + " results changed, "
+                    + takeBacks + " taken back: " + (passed ? "PASS" : "FAIL"));
+        }
+        catch (IOException e) {
+            System.out.println("File not found");
+        }
+    }
+
+    /** Empties a game and every game above it, as a take-back does */
+    private static void clearUp(byte[] results, int game) {
+        for (int node = game; node >= 0; node = node == 0 ? -1 : (node - 1) / 2) {
+            results[node] = TeamTable.EMPTY;
+        }
+    }
+
+    /**
+     * Rescores every player against the results from scratch and compares with the leaderboard.
+     */
+    private static boolean check(LiveLeaderboard live, List<Bracket> brackets, Bracket starting, byte[] results,
+                                 String when) {
+        Bracket truth = new Bracket(starting.getTeamTable(), results, null);
+        int[] scores = new int[brackets.size()];
+        for (int p = 0; p < scores.length; p++) {
+            Bracket b = brackets.get(p);
+            scores[p] = b.scoreBracket(truth);
+            // scoreBracket counts a game left unpicked as matching one not played yet; the leaderboard doesn't
+            for (int game = 0; game < NUM_OF_GAMES; game++) {
+                if (b.getTeamId(game) == TeamTable.EMPTY && results[game] == TeamTable.EMPTY) {
+                    scores[p] -= Bracket.pointsFor(game);
+                }
+            }
+        }
+        int[] sorted = scores.clone();
+        Arrays.sort(sorted);
+
+        for (int p = 0; p < scores.length; p++) {
+            int above = sorted.length - upperBound(sorted, scores[p]);
+            if (live.getScore(p) != scores[p] || live.getRank(p) != 1 + above) {
+                System.out.println(when + ": player " + p + " has score " + live.getScore(p) + " rank "
+                        + live.getRank(p) + ", rescoring gives " + scores[p] + " rank " + (1 + above));
+                return false;
+            }
+        }
+        boolean[] lost = new boolean[TeamTable.MAX_TEAMS];
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            if (results[game] != TeamTable.EMPTY) {
+                lost[results[2 * game + 1] == results[game] ? results[2 * game + 2] : results[2 * game + 1]] = true;
+            }
+        }
+        int leader = sorted.length == 0 ? 0 : sorted[sorted.length - 1];
+        int eliminated = 0;
+        for (int p = 0; p < scores.length; p++) {
+            Bracket b = brackets.get(p);
+            int max = scores[p];
+            for (int game = 0; game < NUM_OF_GAMES; game++) {
+                int pick = b.getTeamId(game);
+                if (results[game] == TeamTable.EMPTY && pick != TeamTable.EMPTY && !lost[pick]) {
+                    max += Bracket.pointsFor(game);
+                }
+            }
+            boolean out = max < leader;
+            if (out) {
+                eliminated++;
+            }
+            if (live.getMaxScore(p) != max || live.isEliminated(p) != out) {
+                System.out.println(when + ": player " + p + " has maximum " + live.getMaxScore(p)
+                        + (live.isEliminated(p) ? ", eliminated" : "") + "; from scratch " + max
+                        + (out ? ", eliminated" : ""));
+                return false;
+            }
+        }
+        if (live.getLeaderScore() != leader || live.getEliminatedCount() != eliminated) {
+            System.out.println(when + ": leader " + live.getLeaderScore() + " with " + live.getEliminatedCount()
+                    + " eliminated; from scratch " + leader + " with " + eliminated);
+            return false;
+        }
+
+        int[] top = live.top(10);
+        for (int i = 0; i < top.length; i++) {
+            if (scores[top[i]] != sorted[sorted.length - 1 - i]) {
+                System.out.println(when + ": place " + (i + 1) + " of top has " + scores[top[i]] + ", not "
+                        + sorted[sorted.length - 1 - i]);
+                return false;
+            }
+        }
+        Bracket recorded = live.getResults();
+        for (int i = 0; i < NUM_OF_GAMES; i++) {
+            if (recorded.getTeamId(i) != truth.getTeamId(i)) {
+                System.out.println(when + ": game " + i + " has a different result");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Index of the first value above the key */
+    private static int upperBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
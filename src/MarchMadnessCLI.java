@@ -0,0 +1,495 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Command line entry point for running simulations and scoring the pool without the GUI.
+ * Never touches a JavaFX class, so it runs on servers and in batch jobs.
+ *
+ * Usage: java -cp target/classes MarchMadnessCLI [options] command [count]
+ *   leaderboard       simulate one tournament and rank every saved bracket against it
+ *   odds [N]          simulate N tournaments and print each team's chance of reaching each round
+ *   pool [N]          simulate N tournaments and print each player's chance of finishing 1st to 3rd
+ *   history [N]       simulate N tournaments by seed and add every game's score to the history file
+ *   margins           print how many games of each round in the history were won by each margin
+ *   scores            print how often each score was put up in each round of the history
+ *   upsets            print how often each seed matchup in the history went to the bigger seed number
+ *   build-pool DIR    write every .ser bracket in DIR into the pool file, reporting the ones left out
+ *   convert DIR       print every .ser bracket in DIR as a CSV row or, with --format json, a JSON line
+ *                     of player, encoded picks and champion, reporting the ones left out
+ *   optimize [N]      print the pick for every game of the bracket with the highest expected score or,
+ *                     when there are saved brackets, the one most likely to finish first against them
+ *                     over N sampled tournaments
+ * Options:
+ *   --format csv|json output format, csv by default. JSON carries a table's metadata, such as the
+ *                     leaderboard's champion, next to its rows; CSV prints it on stderr like the seed
+ *   --store FILE      bracket store to read players from, brackets.db by default
+ *   --ser DIR         also read legacy .ser brackets from DIR
+ *   --model seed|ppg  how games are decided: by seed (the default, as in the GUI) or by points per game
+ *   --model table FILE  decide games from a table of win chances by seed, as in seedWinTable.txt
+ *   --seed N          seed for the random draws; the same seed replays the same results on any machine.
+ *                     Without it a random seed is used and printed on stderr
+ *   --history FILE    score history to add to or read from, history.dat by default
+ *   --pool FILE       pool file to write with build-pool, pool.mmpf by default; with leaderboard,
+ *                     rank the players of this pool file instead of the store
+ */
+public class MarchMadnessCLI {
+    private static final long DEFAULT_TOURNAMENTS = 1000000;
+    /** Sampled tournaments optimize scores its candidates against; each flip tried goes over all of them */
+    private static final long DEFAULT_OPTIMIZE_TOURNAMENTS = 10000;
+    /** Most games optimize changes while climbing from the highest expected score bracket */
+    private static final int OPTIMIZE_STEPS = 100;
+    private static final int POOL_PLACES = 3;
+    /** A number as JSON writes it; NaN, Infinity, hex and Java's f and d suffixes don't match */
+    private static final Pattern JSON_NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    private final PrintStream out;
+    private final boolean json;
+    private final TournamentInfo info;
+    private final Bracket startingBracket;
+    private final GameModel model;
+    private final long seed;
+    /** Column names of the table being printed */
+    private String[] columns;
+
+    private MarchMadnessCLI(PrintStream out, boolean json, GameModel model, long seed) throws IOException {
+        this.out = out;
+        this.json = json;
+        this.model = model;
+        this.seed = seed;
+        info = new TournamentInfo();
+        startingBracket = new Bracket(info.loadStartingBracket());
+    }
+
+    /**
+     * @param args the command line arguments, see the class comment
+     */
+    public static void main(String[] args) {
+        String format = "csv";
+        File store = new File("brackets.db");
+        File serDir = null;
+        String model = "seed";
+        File table = null;
+        String seedArg = null;
+        File history = new File("history.dat");
+        File poolFile = null;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = value(args, ++i);
+                    break;
+                case "--store":
+                    store = new File(value(args, ++i));
+                    break;
+                case "--ser":
+                    serDir = new File(value(args, ++i));
+                    break;
+                case "--model":
+                    model = value(args, ++i);
+                    if (model.equals("table")) {
+                        table = new File(value(args, ++i));
+                    }
+                    break;
+                case "--seed":
+                    seedArg = value(args, ++i);
+                    break;
+                case "--history":
+                    history = new File(value(args, ++i));
+                    break;
+                case "--pool":
+                    poolFile = new File(value(args, ++i));
+                    break;
+                default:
+                    positional.add(args[i]);
+            }
+        }
+        if (positional.isEmpty() || !(format.equals("csv") || format.equals("json"))
+                || !(model.equals("seed") || model.equals("ppg") || model.equals("table"))) {
+            usage();
+        }
+
+        try {
+            GameModel gameModel;
+            if (model.equals("table")) {
+                gameModel = TableGameModel.load(table);
+            } else {
+                gameModel = model.equals("ppg") ? new PpgGameModel() : new SeedGameModel();
+            }
+            long seed;
+            if (seedArg != null) {
+                seed = Long.parseLong(seedArg);
+            } else {
+                seed = new SplittableRandom().nextLong();
+                System.err.println("seed: " + seed);
+            }
+            MarchMadnessCLI cli = new MarchMadnessCLI(System.out, format.equals("json"), gameModel, seed);
+            boolean counted = positional.size() > 1 && !positional.get(0).equals("build-pool")
+                    && !positional.get(0).equals("convert");
+            long count = counted ? Long.parseLong(positional.get(1))
+                    : positional.get(0).equals("optimize") ? DEFAULT_OPTIMIZE_TOURNAMENTS : DEFAULT_TOURNAMENTS;
+            switch (positional.get(0)) {
+                case "leaderboard":
+                    if (poolFile != null) {
+                        cli.leaderboard(poolFile);
+                    } else {
+                        cli.leaderboard(cli.loadPool(store, serDir));
+                    }
+                    break;
+                case "odds":
+                    cli.odds(count);
+                    break;
+                case "pool":
+                    cli.pool(cli.loadPool(store, serDir), count);
+                    break;
+                case "history":
+                    cli.history(history, count);
+                    break;
+                case "margins":
+                case "scores":
+                case "upsets":
+                    cli.summary(history, positional.get(0));
+                    break;
+                case "optimize":
+                    cli.optimize(cli.loadPool(store, serDir), count);
+                    break;
+                case "build-pool":
+                case "convert":
+                    if (positional.size() < 2) {
+                        usage();
+                    }
+                    cli.convert(new File(positional.get(1)), positional.get(0).equals("build-pool")
+                            ? (poolFile != null ? poolFile : new File("pool.mmpf")) : null);
+                    break;
+                default:
+                    usage();
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            usage();
+        }
+        return args[i];
+    }
+
+    private static void usage() {
+        System.err.println("Usage: MarchMadnessCLI [--format csv|json] [--store FILE] [--ser DIR] [--model seed|ppg|table FILE] [--seed N] [--history FILE] [--pool FILE] leaderboard|odds [N]|pool [N]|history [N]|margins|scores|upsets|build-pool DIR|convert DIR|optimize [N]");
+        System.exit(2);
+    }
+
+    /**
+     * Simulates one tournament and prints every player ranked by score, ties sharing a place.
+     */
+    private void leaderboard(List<Bracket> players) {
+        Bracket master = simulateMaster();
+        int[] scores = new BracketColumns(startingBracket.getTeamTable(), players).scoreAll(master);
+        List<String> names = new ArrayList<>(players.size());
+        for (Bracket b : players) {
+            names.add(b.getPlayerName());
+        }
+        printLeaderboard(master, names, scores);
+    }
+
+    /**
+     * Same as {@link #leaderboard(List)} for the players of a pool file, scored without loading their brackets.
+     */
+    private void leaderboard(File path) throws IOException {
+        try (PoolFile pool = new PoolFile(path, startingBracket)) {
+            Bracket master = simulateMaster();
+            printLeaderboard(master, pool.getPlayerNames(), pool.scoreAll(master));
+        }
+    }
+
+    private Bracket simulateMaster() {
+        Bracket master = new Bracket(startingBracket);
+        int[] winners = simulator().sampleOutcomes(1, seed)[0];
+        for (int game = winners.length - 1; game >= 0; game--) {
+            String winner = startingBracket.getTeamName(winners.length + winners[game]);
+            master.moveTeamUp(master.getTeamName(2 * game + 1).equals(winner) ? 2 * game + 1 : 2 * game + 2);
+        }
+        return master;
+    }
+
+    private void printLeaderboard(Bracket master, List<String> players, int[] scores) {
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> -scores[i]));
+
+        startTable("champion", quote(master.getTeamName(0)), "rank", "player", "score");
+        int rank = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (i == 0 || scores[order[i]] != scores[order[i - 1]]) {
+                rank = i + 1;
+            }
+            row(i, String.valueOf(rank), quote(players.get(order[i])), String.valueOf(scores[order[i]]));
+        }
+        endTable();
+    }
+
+    /**
+     * Simulates a batch of tournaments and prints each team's advancement odds.
+     */
+    private void odds(long tournaments) {
+        AdvancementOdds odds = simulator().simulateBatch(tournaments, seed);
+        String[] header = new String[AdvancementOdds.NUM_OF_ROUNDS];
+        header[0] = "team";
+        for (int r = 1; r < AdvancementOdds.NUM_OF_ROUNDS; r++) {
+            header[r] = AdvancementOdds.ROUND_NAMES[r];
+        }
+        startTable("tournaments", String.valueOf(tournaments), header);
+        for (int t = 0; t < odds.getTeamCount(); t++) {
+            String[] values = new String[AdvancementOdds.NUM_OF_ROUNDS];
+            values[0] = quote(odds.getTeamName(t));
+            for (int r = 1; r < AdvancementOdds.NUM_OF_ROUNDS; r++) {
+                values[r] = String.valueOf(odds.getProbability(t, r));
+            }
+            row(t, values);
+        }
+        endTable();
+    }
+
+    /**
+     * Simulates a batch of tournaments against the pool and prints each player's finishing odds.
+     */
+    private void pool(List<Bracket> players, long tournaments) {
+        BracketColumns brackets = new BracketColumns(startingBracket.getTeamTable(), players);
+        PoolOdds odds = new PoolSimulator(simulator(), startingBracket, brackets, POOL_PLACES).run(tournaments, seed);
+
+        String[] header = new String[POOL_PLACES + 1];
+        header[0] = "player";
+        for (int place = 1; place <= POOL_PLACES; place++) {
+            header[place] = "place" + place;
+        }
+        startTable("tournaments", String.valueOf(tournaments), header);
+        for (int p = 0; p < odds.getPlayerCount(); p++) {
+            String[] values = new String[POOL_PLACES + 1];
+            values[0] = quote(odds.getPlayerName(p));
+            for (int place = 1; place <= POOL_PLACES; place++) {
+                values[place] = String.valueOf(odds.getProbability(p, place));
+            }
+            row(p, values);
+        }
+        endTable();
+    }
+
+    /**
+     * Prints the picks of the bracket with the highest expected score under the model, or, when there
+     * are players, of the bracket climbed from it that finishes first against them most often over a
+     * sample of tournaments. Each row is a game with the team picked and its chance of winning it.
+     */
+    private void optimize(List<Bracket> players, long tournaments) {
+        if (tournaments < 1 || tournaments > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("optimize needs between 1 and " + Integer.MAX_VALUE + " tournaments");
+        }
+        TournamentSimulator simulator = simulator();
+        double[][] reach = simulator.reachProbabilities();
+        BracketOptimizer optimizer = new BracketOptimizer(reach);
+        Bracket best;
+        if (players.isEmpty()) {
+            best = optimizer.maxExpectedScore(startingBracket, "optimizer");
+        } else {
+            BracketColumns field = new BracketColumns(startingBracket.getTeamTable(), players);
+            int[][] outcomes = simulator.sampleOutcomes((int) tournaments, seed);
+            best = optimizer.maxWinProbability(startingBracket, field, outcomes, OPTIMIZE_STEPS, "optimizer");
+        }
+
+        startTable("expected", String.valueOf(optimizer.expectedScore(best)), "game", "reaches", "team", "chance");
+        int games = reach.length / 2;
+        for (int game = 0; game < games; game++) {
+            // the root's winner is the champion, a first round game's reaches the round of 32
+            int depth = 31 - Integer.numberOfLeadingZeros(game + 1);
+            String reaches = AdvancementOdds.ROUND_NAMES[AdvancementOdds.NUM_OF_ROUNDS - 1 - depth];
+            int team = 0;
+            while (startingBracket.getTeamId(games + team) != best.getTeamId(game)) {
+                team++;
+            }
+            row(game, String.valueOf(game), quote(reaches), quote(best.getTeamName(game)),
+                    String.valueOf(reach[game][team]));
+        }
+        endTable();
+    }
+
+    /**
+     * Plays tournaments one at a time with TournamentInfo, which decides games by seed and keeps their
+     * scores, and streams each into the history file.
+     */
+    private void history(File path, long tournaments) throws IOException {
+        SplittableRandom rng = new SplittableRandom(seed);
+        try (ScoreHistory history = new ScoreHistory(path, startingBracket)) {
+            for (long i = 0; i < tournaments; i++) {
+                Bracket simulated = new Bracket(startingBracket);
+                info.simulate(simulated, rng.nextLong());
+                history.record(simulated);
+            }
+            startTable("file", quote(path.getPath()), "recorded", "tournaments");
+            row(0, String.valueOf(tournaments), String.valueOf(history.size()));
+            endTable();
+        }
+    }
+
+    /**
+     * Prints one of the tables counted from the history file: margins, scores or upsets.
+     */
+    private void summary(File path, String table) throws IOException {
+        if (!path.exists()) {
+            throw new IOException(path + " does not exist; record some tournaments with the history command first");
+        }
+        ScoreHistory.Summary summary;
+        try (ScoreHistory history = new ScoreHistory(path, startingBracket)) {
+            summary = history.summarize();
+        }
+        String tournaments = String.valueOf(summary.getTournaments());
+        if (table.equals("upsets")) {
+            startTable("tournaments", tournaments, "better", "worse", "games", "upsets", "rate");
+            int row = 0;
+            for (int better = 1; better <= summary.getMaxSeed(); better++) {
+                for (int worse = better + 1; worse <= summary.getMaxSeed(); worse++) {
+                    long games = summary.getGames(better, worse);
+                    if (games > 0) {
+                        long upsets = summary.getUpsets(better, worse);
+                        row(row++, String.valueOf(better), String.valueOf(worse), String.valueOf(games),
+                                String.valueOf(upsets), String.valueOf((double) upsets / games));
+                    }
+                }
+            }
+            endTable();
+            return;
+        }
+
+        boolean margins = table.equals("margins");
+        long[][] counts = new long[ScoreHistory.Summary.NUM_OF_ROUNDS][];
+        String[] header = new String[counts.length + 1];
+        header[0] = margins ? "margin" : "score";
+        int first = ScoreHistory.MAX_SCORE;
+        int last = 0;
+        for (int r = 0; r < counts.length; r++) {
+            counts[r] = margins ? summary.getMargins(r) : summary.getScores(r);
+            header[r + 1] = AdvancementOdds.ROUND_NAMES[r];
+            for (int v = 0; v < counts[r].length; v++) {
+                if (counts[r][v] > 0) {
+                    first = Math.min(first, v);
+                    last = Math.max(last, v);
+                }
+            }
+        }
+        startTable("tournaments", tournaments, header);
+        for (int v = first; v <= last; v++) {
+            String[] values = new String[header.length];
+            values[0] = String.valueOf(v);
+            for (int r = 0; r < counts.length; r++) {
+                values[r + 1] = String.valueOf(counts[r][v]);
+            }
+            row(v - first, values);
+        }
+        endTable();
+    }
+
+    /**
+     * Converts a directory of .ser brackets into the pool file, printing how many made it in, or into
+     * lines on stdout when there is no pool file. The files left out are reported on stderr.
+     */
+    private void convert(File serDir, File path) throws IOException {
+        BracketConverter converter = new BracketConverter(startingBracket, System.err);
+        if (path == null) {
+            converter.toLines(serDir, out, json);
+            System.err.println("converted " + converter.getConverted() + ", skipped " + converter.getSkipped());
+        } else {
+            converter.toPool(serDir, path);
+            startTable("file", quote(path.getPath()), "brackets", "skipped");
+            row(0, String.valueOf(converter.getConverted()), String.valueOf(converter.getSkipped()));
+            endTable();
+        }
+    }
+
+    private TournamentSimulator simulator() {
+        return new TournamentSimulator(info, startingBracket, model, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads every player bracket from the store, plus any .ser files in serDir.
+     * Malformed .ser files are reported on stderr and skipped.
+     */
+    private List<Bracket> loadPool(File store, File serDir) throws IOException {
+        List<Bracket> players = new ArrayList<>();
+        if (store.exists()) {
+            try (BracketStore brackets = new BracketStore(store, startingBracket.getTeamTable())) {
+                players.addAll(brackets.loadAll());
+            }
+        }
+        if (serDir != null) {
+            File[] files = serDir.listFiles((dir, name) -> name.endsWith(".ser"));
+            for (File f : files == null ? new File[0] : files) {
+                try (FileInputStream in = new FileInputStream(f)) {
+                    players.add(Bracket.readSerialized(in));
+                } catch (IOException | ClassNotFoundException e) {
+                    System.err.println("Skipping " + f + ": " + e);
+                }
+            }
+        }
+        return players;
+    }
+
+    private void startTable(String metaName, String metaValue, String... columns) {
+        this.columns = columns;
+        if (json) {
+            out.println("{\"" + metaName + "\": " + jsonValue(metaValue) + ", \"rows\": [");
+        } else {
+            // kept out of the rows so the CSV stays one header line and data
+            System.err.println(metaName + ": " + metaValue);
+            out.println(String.join(",", columns));
+        }
+    }
+
+    private void row(int index, String... values) {
+        if (json) {
+            StringBuilder sb = new StringBuilder(index == 0 ? "  {" : ", {");
+            for (int i = 0; i < values.length; i++) {
+                sb.append(i == 0 ? "" : ", ").append('"').append(columns[i]).append("\": ").append(jsonValue(values[i]));
+            }
+            out.println(sb.append('}'));
+        } else {
+            out.println(String.join(",", values));
+        }
+    }
+
+    private void endTable() {
+        if (json) {
+            out.println("]}");
+        }
+    }
+
+    /**
+     * Quotes a name for output: CSV quoting for csv, JSON string escaping for json.
+     */
+    private String quote(String s) {
+        return json ? Escaping.json(s) : Escaping.csv(s);
+    }
+
+    /**
+     * Values that are already quoted or valid JSON numbers pass through, and a NaN or infinite number,
+     * which JSON has no way to write, becomes null. Anything else becomes a JSON string.
+     */
+    private String jsonValue(String value) {
+        if (value.startsWith("\"") || JSON_NUMBER.matcher(value).matches()) {
+            return value;
+        }
+        if (value.matches("[+-]?(NaN|Infinity)")) {
+            return "null";
+        }
+        return quote(value);
+    }
+}
@@ -1,11 +1,9 @@
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Objects;
 import javafx.application.Application;
 import javafx.geometry.Insets;
@@ -64,10 +62,8 @@ public class MarchMadnessGUI extends Application {
     private Bracket selectedBracket;
     /** Bracket modified to house results of simulation */
     private Bracket simResultBracket;
-    /** Collection of all saved Brackets converted into Objects */
-    private ArrayList<Bracket> savedPlayerBrackets;
-    /** Map linking a players name with their bracket */
-    private HashMap<String, Bracket> savedBracketsMap;
+    /** Map linking a players name with their bracket, for brackets loaded or created this session */
+    private LinkedHashMap<String, Bracket> savedBracketsMap;
     /** Component to display bracket results, contains a TableView<Bracket> */
     private ScoreBoardTable scoreBoard;
     /** Houses Graphical components used to display bracket window */
@@ -76,6 +72,16 @@ public class MarchMadnessGUI extends Application {
     private GridPane loginPane;
     /** Data structure for Team objects involved in tournament */
     private TournamentInfo teamInfo;
+    /** Single file holding every saved player bracket */
+    private BracketStore bracketStore;
+    /** Name of the bracket store file in the working directory */
+    private static final String STORE_FILE = "brackets.db";
+    /** Large read-only pool built offline, scored along with the store when present */
+    private PoolFile poolFile;
+    /** Name of the pool file in the working directory */
+    private static final String POOL_FILE = "pool.mmpf";
+    /** Unreadable .ser files listed by name in the import alert; the rest are only counted */
+    private static final int MAX_FAILURES_SHOWN = 10;
 
     /**
      * Initialize class components and compose window setting
@@ -85,20 +91,33 @@ public class MarchMadnessGUI extends Application {
         try{
             teamInfo = new TournamentInfo();
             startingBracket = new Bracket(teamInfo.loadStartingBracket());
-            simResultBracket = new Bracket(teamInfo.loadStartingBracket()); // TODO: does this need to be initialized at all?
+            simResultBracket = new Bracket(startingBracket);
         } catch (IOException ex) {
             showError(new Exception("Can't find " + ex.getMessage(), ex),true);
         }
 
-        // Convert all .ser files current saved into Bracket objects
-        savedPlayerBrackets = loadSavedBrackets();
+        try{
+            bracketStore = new BracketStore(new File(STORE_FILE), startingBracket.getTeamTable());
+            // first run with the store: bring over brackets saved as .ser files by older versions
+            if(bracketStore.size() == 0){
+                importSavedBrackets();
+            }
+        } catch (IOException ex) {
+            showError(new Exception("Can't open " + STORE_FILE + " " + ex.getMessage(), ex),true);
+        }
 
-        // import all saved player Brackets
-        savedBracketsMap = new HashMap<>();
-        for(Bracket b : savedPlayerBrackets){
-            savedBracketsMap.put(b.getPlayerName(), b);
+        // pools too big to load as brackets are built into a pool file with the CLI's build-pool command
+        if (new File(POOL_FILE).exists()) {
+            try {
+                poolFile = new PoolFile(new File(POOL_FILE), startingBracket);
+            } catch (IOException ex) {
+                showError(new Exception("Can't open " + POOL_FILE + " " + ex.getMessage(), ex),false);
+            }
         }
 
+        // saved brackets stay in the store until their player signs in or the games are simulated
+        savedBracketsMap = new LinkedHashMap<>();
+
         rootPane = new BorderPane();
         scoreBoard = new ScoreBoardTable();
         loginPane = createLoginWindow();
@@ -112,10 +131,7 @@ public class MarchMadnessGUI extends Application {
         clearBtn.setOnAction(e->clear());
         resetBtn.setOnAction(e->reset());
         finalizeBtn.setOnAction(e->finalizeBracket());
-        backBtn.setOnAction(e->{
-            bracketPane = new BracketPane(selectedBracket);
-            swapDisplayWindow(bracketPane);
-        });
+        backBtn.setOnAction(e->showBracket(selectedBracket));
 
         // compose window by combing components
         rootPane.setTop(topToolBar);
@@ -139,6 +155,27 @@ public class MarchMadnessGUI extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Called when the application exits; flushes the bracket store to disk
+     */
+    @Override
+    public void stop() {
+        try {
+            if (bracketStore != null) {
+                bracketStore.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error closing " + STORE_FILE + ": " + e.getMessage());
+        }
+        try {
+            if (poolFile != null) {
+                poolFile.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error closing " + POOL_FILE + ": " + e.getMessage());
+        }
+    }
+
     /**
      * @param args the command line arguments
      */
@@ -158,9 +195,21 @@ public class MarchMadnessGUI extends Application {
         viewBracketBtn.setDisable(false);
 
         teamInfo.simulate(simResultBracket);
-        for(Bracket b : savedPlayerBrackets) {
-            scoreBoard.addPlayer(b,b.scoreBracket(simResultBracket));
+        // the pool file is scored straight from disk and ranked by score; names are read only for the page shown
+        if (poolFile != null) {
+            scoreBoard.setPool(poolFile.getPlayerNames(), poolFile.scoreAll(simResultBracket));
         }
+        // the results go into the live leaderboard game by game, each touching only the players who
+        // picked one of its teams, instead of rescoring every bracket against the finished master
+        ArrayList<Bracket> playerBrackets = collectPlayerBrackets();
+        BracketColumns pool = new BracketColumns(startingBracket.getTeamTable(), playerBrackets);
+        LiveLeaderboard liveLeaderboard = new LiveLeaderboard(pool, startingBracket);
+        liveLeaderboard.applyResults(simResultBracket);
+        int[] scores = new int[pool.size()];
+        for (int p = 0; p < scores.length; p++) {
+            scores[p] = liveLeaderboard.getScore(p);
+        }
+        scoreBoard.addPlayers(playerBrackets, scores);
 
         swapDisplayWindow(scoreBoard.getScoreTable());
     }
@@ -191,7 +240,7 @@ public class MarchMadnessGUI extends Application {
       */
     private void displaySimulatedBracket(){
         selectedBracket = simResultBracket;
-        bracketPane = new BracketPane(selectedBracket);
+        bindBracket(selectedBracket);
         GridPane full = bracketPane.getFullPane();
         full.setAlignment(Pos.CENTER);
         full.setDisable(true);
@@ -203,18 +252,39 @@ public class MarchMadnessGUI extends Application {
     */
     private void displaySelectedBracket() {
         bottomToolBar.setDisable(false);
-        bracketPane = new BracketPane(selectedBracket);
+        showBracket(selectedBracket);
+    }
+
+    /**
+     * Shows a bracket in bracketPane, ready to be edited
+     * @param bracket the bracket to show
+     */
+    private void showBracket(Bracket bracket) {
+        // rebinding also re-enables the full pane, which the simulated bracket leaves disabled
+        bindBracket(bracket);
+        bracketPane.setDisable(false);
         swapDisplayWindow(bracketPane);
     }
 
+    /**
+     * Puts a bracket in bracketPane. The pane is only built the first time;
+     * after that its nodes are rebound to the new bracket
+     * @param bracket the bracket to show
+     */
+    private void bindBracket(Bracket bracket) {
+        if (bracketPane == null) {
+            bracketPane = new BracketPane(bracket);
+        } else {
+            bracketPane.setBracket(bracket);
+        }
+    }
+
     /**
     * resets current selected subtree
     * for final4 reset Ro2 and winner
     */
     private void clear(){
         bracketPane.clear();
-        bracketPane = new BracketPane(selectedBracket);
-        swapDisplayWindow(bracketPane);
     }
     
     /**
@@ -223,8 +293,7 @@ public class MarchMadnessGUI extends Application {
     private void reset(){
         if(confirmReset()) {
             selectedBracket = new Bracket(startingBracket);
-            bracketPane = new BracketPane(selectedBracket);
-            swapDisplayWindow(bracketPane);
+            showBracket(selectedBracket);
         }
     }
 
@@ -238,7 +307,7 @@ public class MarchMadnessGUI extends Application {
             simulateBtn.setDisable(false);
             loginBtn.setDisable(false);
             //save the bracket along with account info
-            serializeBracket(selectedBracket);
+            saveBracket(selectedBracket);
         }else{
             infoAlert("You can only finalize a bracket once it has been completed.");
         }
@@ -329,23 +398,24 @@ public class MarchMadnessGUI extends Application {
             String name = enterUser.getText();
             // the password user enter
             String playerPass = passwordField.getText();
-            if (savedBracketsMap.get(name) != null) {
+            Bracket tmpBracket = findBracket(name);
+            if (tmpBracket != null) {
                 //check password of user
-                Bracket tmpBracket = this.savedBracketsMap.get(name);
                 String password1 = tmpBracket.getPassword();
                 if (Objects.equals(password1, playerPass)) {
                     // load bracket
-                    selectedBracket = savedBracketsMap.get(name);
+                    selectedBracket = tmpBracket;
                     displaySelectedBracket();
                 }else{
                    infoAlert("The password you have entered is incorrect!");
                 }
             } else {
                 //check for empty fields
-                if(!name.equals("")&&!playerPass.equals("")){
+                if(!BracketStore.fits(name) || !BracketStore.fits(playerPass)){
+                    infoAlert("User names and passwords can be at most " + BracketStore.MAX_TEXT_BYTES + " characters long.");
+                } else if(!name.equals("")&&!playerPass.equals("")){
                     //create new bracket
                     Bracket tmpPlayerBracket = new Bracket(startingBracket, name);
-                    savedPlayerBrackets.add(tmpPlayerBracket);
                     tmpPlayerBracket.setPassword(playerPass);
 
                     savedBracketsMap.put(name, tmpPlayerBracket);
@@ -361,6 +431,42 @@ public class MarchMadnessGUI extends Application {
     }
 
     
+    /**
+     * Looks up a player's bracket, loading just that record from the store the first time it is asked for.
+     * @param name the player name
+     * @return the player's bracket, or null if there is none
+     */
+    private Bracket findBracket(String name) {
+        Bracket bracket = savedBracketsMap.get(name);
+        if (bracket == null) {
+            bracket = bracketStore.load(name);
+            if (bracket != null) {
+                savedBracketsMap.put(name, bracket);
+            }
+        }
+        return bracket;
+    }
+
+    /**
+     * Gathers every player's bracket for scoring: the saved ones streamed from the store in record order,
+     * using this session's copy where a player has signed in, followed by accounts created this session
+     * that have not been finalized yet.
+     * @return all player brackets
+     */
+    private ArrayList<Bracket> collectPlayerBrackets() {
+        ArrayList<Bracket> list = new ArrayList<>();
+        for (String name : bracketStore.getPlayerNames()) {
+            Bracket session = savedBracketsMap.get(name);
+            list.add(session != null ? session : bracketStore.load(name));
+        }
+        for (Bracket b : savedBracketsMap.values()) {
+            if (!bracketStore.contains(b.getPlayerName())) {
+                list.add(b);
+            }
+        }
+        return list;
+    }
+
     /**
      * The Exception handler;
      * displays an error message to the user and kills program on fatal error.
@@ -410,40 +516,43 @@ public class MarchMadnessGUI extends Application {
     }
 
     /**
-     * Tayon Watson 5/5.
-     * Exports the Bracket to a .ser file by serializing it.
-     * @param B The bracket the is going to be serialized
+     * Writes the finalized Bracket to its player's record in the bracket store, updating it in place if it was saved before.
+     * @param B The bracket the is going to be saved
      */
-    private void serializeBracket(Bracket B){
-        FileOutputStream outStream;
-        ObjectOutputStream out;
+    private void saveBracket(Bracket B){
         try {
-            outStream = new FileOutputStream(B.getPlayerName()+".ser");
-            out = new ObjectOutputStream(outStream);
-            out.writeObject(B);
-            out.close();
-        } catch(IOException e) {
+            bracketStore.save(B);
+            bracketStore.setFinalized(B.getPlayerName(), true);
+        } catch(IOException | IllegalArgumentException e) {
           showError(new Exception("Error saving bracket \n"+e.getMessage(),e),false);
         }
     }
 
+    /**
+     * Copies every bracket saved as a .ser file into the bracket store.
+     * The .ser files are left in place.
+     */
+    private void importSavedBrackets() {
+        for (Bracket b : loadSavedBrackets()) {
+            if (b != null) {
+                saveBracket(b);
+            }
+        }
+    }
+
     /**
      * Tayon Watson 5/5.
      * Imports a .ser file and deserializes it into a Bracket object
      * @param filename of the serialized bracket file
-     * @return deserialized bracket 
+     * @param failures gets the file name and the reason if the file can't be read
+     * @return deserialized bracket, or null if it can't be read
      */
-    private Bracket deserializeBracket(String filename){
+    private Bracket deserializeBracket(String filename, List<String> failures){
         Bracket bracket = null;
-        FileInputStream inStream;
-        ObjectInputStream in;
-        try {
-            inStream = new FileInputStream(filename);
-            in = new ObjectInputStream(inStream);
-            bracket = (Bracket) in.readObject();
-            in.close();
+        try (FileInputStream inStream = new FileInputStream(filename)) {
+            bracket = Bracket.readSerialized(inStream);
         } catch (IOException | ClassNotFoundException e) {
-            showError(new Exception("Error loading bracket \n"+e.getMessage(),e),false);
+            failures.add(filename + ": " + e);
         }
 
         return bracket;
@@ -451,7 +560,9 @@ public class MarchMadnessGUI extends Application {
     }
     
     /**
-     * Import all .ser files from project folder and instantiate Bracket objects for each file
+     * Import all .ser files from project folder and instantiate Bracket objects for each file.
+     * Files that can't be read are listed in a single alert at the end rather than one alert each;
+     * for big directories use the CLI's convert and build-pool commands, which report them on stderr.
      * @return List of new Bracket objects
      */
     private ArrayList<Bracket> loadSavedBrackets() {
@@ -472,15 +583,24 @@ public class MarchMadnessGUI extends Application {
         }
 
         // iterate over each file and check if it has .ser extension
+        List<String> failures = new ArrayList<>();
         for (File fileEntry : files) {
             String fileName = fileEntry.getName();
             String extension = fileName.substring(fileName.lastIndexOf(".") + 1);
 
             if (extension.equals("ser")) {
-                list.add(deserializeBracket(fileName));
+                list.add(deserializeBracket(fileName, failures));
             }
         }
 
+        if (!failures.isEmpty()) {
+            int shown = Math.min(failures.size(), MAX_FAILURES_SHOWN);
+            String msg = "Error loading " + failures.size() + " saved brackets\n"
+                    + String.join("\n", failures.subList(0, shown))
+                    + (failures.size() > shown ? "\nand " + (failures.size() - shown) + " more" : "");
+            showError(new Exception(msg), false);
+        }
+
         return list;
     }
 }
@@ -0,0 +1,445 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the pool over HTTP using the JDK's built-in server, so players can submit brackets without
+ * anyone clicking through the GUI. All brackets live in the {@link BracketStore}; its methods are
+ * synchronized, so concurrent submissions are safe, and the leaderboard is served from an immutable
+ * snapshot that is only rebuilt when the store or the simulated results change.
+ *
+ * Endpoints (responses are JSON). Passwords are only read from a form-encoded body, never from the
+ * query string, so they stay out of URLs and access logs:
+ *   POST /brackets              player=P&amp;password=W     create an empty bracket
+ *   POST /brackets/P            password=W              read a bracket's 127 slots
+ *   PUT  /brackets/P            password=W&amp;picks=...    replace the 63 picks; one team name per line, "" for none
+ *   POST /brackets/P/finalize   password=W              lock a complete bracket
+ *   POST /simulate              admin=A[&amp;seed=N]        simulate the tournament; the seed is optional and replays a result
+ *   GET  /leaderboard?offset=0&amp;limit=50              ranked finalized brackets against the simulated results
+ *
+ * /simulate overwrites the results everyone is scored against, so it needs the admin password from the
+ * MARCH_MADNESS_ADMIN_PASSWORD environment variable; without one set it is turned off. Bodies over
+ * {@link #MAX_BODY_BYTES} are refused with 413.
+ *
+ * Usage: java -cp target/classes MarchMadnessServer [--port 8080] [--store brackets.db]
+ */
+public class MarchMadnessServer {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_SLOTS = 127;
+    /** Largest request body read; 63 picks of even the longest names fit many times over */
+    static final int MAX_BODY_BYTES = 64 * 1024;
+    /** Environment variable holding the password /simulate needs */
+    private static final String ADMIN_PASSWORD_VARIABLE = "MARCH_MADNESS_ADMIN_PASSWORD";
+
+    private final BracketStore store;
+    private final TournamentInfo info;
+    private final Bracket startingBracket;
+    /** Password /simulate needs, null if simulating over HTTP is turned off */
+    private final String adminPassword;
+    /** Held while the leaderboard is rebuilt, so concurrent requests build it once */
+    private final Object leaderboardLock = new Object();
+    /** Results of the last simulation, null until /simulate is called */
+    private volatile Bracket simResultBracket;
+    /** Last computed leaderboard; replaced whole, never modified */
+    private volatile Leaderboard leaderboard;
+
+    /** A ranked copy of the pool as of one store version and one simulation */
+    private static final class Leaderboard {
+        final long version;
+        final Bracket results;
+        final String[] players;
+        final int[] scores;
+        final int[] ranks;
+
+        Leaderboard(long version, Bracket results, String[] players, int[] scores, int[] ranks) {
+            this.version = version;
+            this.results = results;
+            this.players = players;
+            this.scores = scores;
+            this.ranks = ranks;
+        }
+    }
+
+    /** Reported to the client with an HTTP status instead of a stack trace */
+    private static final class HttpError extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private MarchMadnessServer(BracketStore store, TournamentInfo info, Bracket startingBracket,
+                               String adminPassword) {
+        this.store = store;
+        this.info = info;
+        this.startingBracket = startingBracket;
+        this.adminPassword = adminPassword == null || adminPassword.isEmpty() ? null : adminPassword;
+    }
+
+    /**
+     * @param args --port and --store, see the class comment
+     */
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        File storeFile = new File("brackets.db");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[i + 1]);
+            } else if (args[i].equals("--store")) {
+                storeFile = new File(args[i + 1]);
+            }
+        }
+
+        TournamentInfo info = new TournamentInfo();
+        Bracket starting = new Bracket(info.loadStartingBracket());
+        BracketStore store = new BracketStore(storeFile, starting.getTeamTable());
+        MarchMadnessServer server = new MarchMadnessServer(store, info, starting,
+                System.getenv(ADMIN_PASSWORD_VARIABLE));
+        if (server.adminPassword == null) {
+            System.out.println(ADMIN_PASSWORD_VARIABLE + " is not set, /simulate is turned off");
+        }
+
+        HttpServer http = HttpServer.create(new InetSocketAddress(port), 0);
+        http.createContext("/", server::handle);
+        http.setExecutor(requestExecutor());
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            http.stop(1);
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing the bracket store: " + e.getMessage());
+            }
+        }));
+        http.start();
+        System.out.println("Listening on port " + port + " with " + store.size() + " saved brackets");
+    }
+
+    /**
+     * One virtual thread per request where the JDK has them (21+), otherwise a cached thread pool.
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            body = route(exchange);
+        } catch (HttpError e) {
+            status = e.status;
+            body = "{\"error\": " + Escaping.json(e.getMessage()) + "}";
+        } catch (IOException | RuntimeException e) {
+            status = 500;
+            body = "{\"error\": " + Escaping.json(String.valueOf(e.getMessage())) + "}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String route(HttpExchange exchange) throws IOException, HttpError {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+        Map<String, String> params = parseParams(exchange.getRequestURI().getRawQuery());
+        // passwords are only taken from here, so one sent in the query string is ignored
+        Map<String, String> form = new HashMap<>();
+        String length = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (length != null && length.matches("\\d+") && Long.parseLong(length) > MAX_BODY_BYTES) {
+            throw new HttpError(413, "Request bodies can be at most " + MAX_BODY_BYTES + " bytes");
+        }
+        String requestBody = readBody(exchange.getRequestBody());
+        if ("application/x-www-form-urlencoded".equals(exchange.getRequestHeaders().getFirst("Content-Type"))) {
+            form = parseParams(requestBody);
+            params.putAll(form);
+        }
+
+        if (path[0].equals("brackets")) {
+            if (path.length == 1 && method.equals("POST")) {
+                return create(form.get("player"), form.get("password"));
+            }
+            if (path.length == 2 && method.equals("POST")) {
+                return show(authorize(path[1], form));
+            }
+            if (path.length == 2 && method.equals("PUT")) {
+                return update(path[1], form);
+            }
+            if (path.length == 3 && path[2].equals("finalize") && method.equals("POST")) {
+                return finalizeBracket(path[1], form);
+            }
+        } else if (path[0].equals("simulate") && path.length == 1 && method.equals("POST")) {
+            if (adminPassword == null) {
+                throw new HttpError(403, "Simulating over HTTP is turned off");
+            }
+            if (!matches(adminPassword, form.get("admin"))) {
+                throw new HttpError(403, "The admin password is incorrect");
+            }
+            String seed = params.get("seed");
+            try {
+                return simulate(seed == null ? new SplittableRandom().nextLong() : Long.parseLong(seed));
+            } catch (NumberFormatException e) {
+                throw new HttpError(400, "seed must be a number");
+            }
+        } else if (path[0].equals("leaderboard") && path.length == 1 && method.equals("GET")) {
+            return leaderboard(intParam(params, "offset", 0), intParam(params, "limit", 50));
+        }
+        throw new HttpError(404, "No such endpoint: " + method + " " + exchange.getRequestURI().getPath());
+    }
+
+    private String create(String player, String password) throws IOException, HttpError {
+        if (player == null || player.isEmpty() || password == null || password.isEmpty()) {
+            throw new HttpError(400, "player and password are required");
+        }
+        if (!BracketStore.fits(player) || !BracketStore.fits(password)) {
+            throw new HttpError(400, "player and password can be at most " + BracketStore.MAX_TEXT_BYTES + " bytes");
+        }
+        Bracket bracket = new Bracket(startingBracket, player);
+        bracket.setPassword(password);
+        synchronized (store) {
+            if (store.contains(player)) {
+                throw new HttpError(409, "A bracket for " + player + " already exists");
+            }
+            store.save(bracket);
+        }
+        return show(bracket);
+    }
+
+    private String update(String player, Map<String, String> form) throws IOException, HttpError {
+        String picks = form.getOrDefault("picks", "");
+        List<String> lines = Arrays.asList(picks.split("\r?\n", -1));
+        if (lines.size() < NUM_OF_GAMES) {
+            throw new HttpError(400, "Expected " + NUM_OF_GAMES + " lines of picks, got " + lines.size());
+        }
+        synchronized (store) {
+            Bracket current = authorize(player, form);
+            if (store.isFinalized(player)) {
+                throw new HttpError(409, "The bracket for " + player + " has been finalized");
+            }
+            byte[] slots = new byte[NUM_OF_SLOTS];
+            TeamTable teams = startingBracket.getTeamTable();
+            for (int i = NUM_OF_SLOTS - 1; i >= 0; i--) {
+                if (i >= NUM_OF_GAMES) {
+                    slots[i] = (byte) startingBracket.getTeamId(i);
+                    continue;
+                }
+                String name = lines.get(i).trim();
+                try {
+                    slots[i] = teams.idOf(name);
+                } catch (IllegalArgumentException e) {
+                    throw new HttpError(400, e.getMessage());
+                }
+                /* a pick has to be one of the two teams playing in that game */
+                if (slots[i] != TeamTable.EMPTY && slots[i] != slots[2 * i + 1] && slots[i] != slots[2 * i + 2]) {
+                    throw new HttpError(400, name + " is not playing in game " + i);
+                }
+            }
+            Bracket updated = new Bracket(teams, slots, player);
+            updated.setPassword(current.getPassword());
+            store.save(updated);
+            return show(updated);
+        }
+    }
+
+    private String finalizeBracket(String player, Map<String, String> form) throws HttpError {
+        synchronized (store) {
+            Bracket bracket = authorize(player, form);
+            if (!bracket.isComplete()) {
+                throw new HttpError(409, "You can only finalize a bracket once it has been completed.");
+            }
+            store.setFinalized(player, true);
+            return show(bracket);
+        }
+    }
+
+    private String simulate(long seed) {
+        Bracket results = new Bracket(startingBracket);
+        info.simulate(results, seed);
+        simResultBracket = results;
+        return "{\"champion\": " + Escaping.json(results.getTeamName(0)) + ", \"seed\": " + seed + "}";
+    }
+
+    private String leaderboard(int offset, int limit) throws HttpError {
+        Leaderboard board = currentLeaderboard();
+        StringBuilder sb = new StringBuilder("{\"players\": ").append(board.players.length).append(", \"rows\": [");
+        int start = Math.max(0, offset);
+        // no start + limit: a huge limit would overflow and give no rows
+        int end = start + Math.max(0, Math.min(board.players.length - start, limit));
+        for (int i = start; i < end; i++) {
+            sb.append(i == start ? "" : ", ")
+                    .append("{\"rank\": ").append(board.ranks[i])
+                    .append(", \"player\": ").append(Escaping.json(board.players[i]))
+                    .append(", \"score\": ").append(board.scores[i]).append('}');
+        }
+        return sb.append("]}").toString();
+    }
+
+    /**
+     * Returns the cached leaderboard, rebuilding it first if a bracket was saved or the tournament
+     * re-simulated since it was made. An up-to-date board is returned without locking; requests that
+     * find it stale queue on one lock and check again, so only the first of them rebuilds.
+     */
+    private Leaderboard currentLeaderboard() throws HttpError {
+        Bracket results = simResultBracket;
+        if (results == null) {
+            throw new HttpError(409, "The tournament has not been simulated yet");
+        }
+        Leaderboard board = leaderboard;
+        if (isCurrent(board, results)) {
+            return board;
+        }
+        synchronized (leaderboardLock) {
+            board = leaderboard;
+            if (isCurrent(board, results)) {
+                return board;
+            }
+            board = buildLeaderboard(results);
+            leaderboard = board;
+            return board;
+        }
+    }
+
+    private boolean isCurrent(Leaderboard board, Bracket results) {
+        return board != null && board.version == store.getVersion() && board.results == results;
+    }
+
+    /**
+     * Scores every finalized bracket against the results and ranks them.
+     */
+    private Leaderboard buildLeaderboard(Bracket results) {
+        // read before the brackets, so a save made while they load leaves the board stale, not wrong
+        long version = store.getVersion();
+        List<String> names = store.getPlayerNames();
+        List<Bracket> finalized = new ArrayList<>();
+        for (String name : names) {
+            if (store.isFinalized(name)) {
+                Bracket b = store.load(name);
+                if (b != null) {
+                    finalized.add(b);
+                }
+            }
+        }
+        int[] scores = new BracketColumns(startingBracket.getTeamTable(), finalized).scoreAll(results);
+        Integer[] order = new Integer[scores.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> -scores[i]));
+        String[] players = new String[order.length];
+        int[] sorted = new int[order.length];
+        int[] ranks = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            players[i] = finalized.get(order[i]).getPlayerName();
+            sorted[i] = scores[order[i]];
+            ranks[i] = (i > 0 && sorted[i] == sorted[i - 1]) ? ranks[i - 1] : i + 1;
+        }
+        return new Leaderboard(version, results, players, sorted, ranks);
+    }
+
+    /**
+     * @return the player's bracket if the password matches
+     */
+    private Bracket authorize(String player, Map<String, String> form) throws HttpError {
+        Bracket bracket = store.load(player);
+        if (bracket == null) {
+            throw new HttpError(404, "No bracket for " + player);
+        }
+        if (!matches(bracket.getPassword(), form.get("password"))) {
+            throw new HttpError(403, "The password you have entered is incorrect!");
+        }
+        return bracket;
+    }
+
+    /**
+     * Compares passwords in time that doesn't depend on where they first differ.
+     */
+    private static boolean matches(String expected, String given) {
+        return given != null && MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String show(Bracket bracket) {
+        StringBuilder sb = new StringBuilder("{\"player\": ").append(Escaping.json(bracket.getPlayerName()))
+                .append(", \"complete\": ").append(bracket.isComplete())
+                .append(", \"finalized\": ").append(store.isFinalized(bracket.getPlayerName()))
+                .append(", \"slots\": [");
+        for (int i = 0; i < NUM_OF_SLOTS; i++) {
+            sb.append(i == 0 ? "" : ", ").append(Escaping.json(bracket.getTeamName(i)));
+        }
+        return sb.append("]}").toString();
+    }
+
+    private static int intParam(Map<String, String> params, String name, int fallback) throws HttpError {
+        String value = params.get(name);
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new HttpError(400, name + " must be a number");
+        }
+    }
+
+    private static Map<String, String> parseParams(String query) throws UnsupportedEncodingException, HttpError {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            } catch (IllegalArgumentException e) {
+                throw new HttpError(400, "Malformed parameter: " + pair);
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Reads the whole body, refusing one over {@link #MAX_BODY_BYTES} even if it came without a length.
+     */
+    private static String readBody(InputStream in) throws IOException, HttpError {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+            if (bytes.size() + n > MAX_BODY_BYTES) {
+                throw new HttpError(413, "Request bodies can be at most " + MAX_BODY_BYTES + " bytes");
+            }
+            bytes.write(buffer, 0, n);
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
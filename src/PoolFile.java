@@ -0,0 +1,335 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read-only pool of up to millions of finished brackets, for public challenges too big to keep as
+ * Bracket objects. Each bracket is stored as the 63 bits of {@link BracketCodec}, so the whole pool is
+ * memory-mapped and scored straight from the file without building a single object; names are only
+ * read for the rows that get shown.
+ *
+ * Layout: a HEADER_SIZE byte header (magic, version, bracket count and the 64 first round team names the
+ * picks are played out from), the brackets as one long each, then the string table: count + 1 int
+ * offsets into the UTF-8 player names that follow, name i running from offset i to offset i + 1.
+ *
+ * Files are written once by a {@link Writer}, for example with {@link #buildFromSer} from a directory of
+ * .ser files, and never changed after that.
+ */
+public class PoolFile implements Closeable {
+    /** Identifies a pool file, "MMPF" */
+    private static final int MAGIC = 0x4D4D5046;
+    private static final int VERSION = 1;
+    /** Bytes reserved for the header, including the team names */
+    private static final int HEADER_SIZE = 4096;
+    private static final int COUNT_OFFSET = 8;
+    private static final int NAMES_OFFSET = 12;
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_TEAMS = 64;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    /** The encoded brackets, a view of the mapped file */
+    private final LongBuffer brackets;
+    private final Bracket starting;
+    private final int count;
+    /** Where the name offsets and the name bytes start */
+    private final int offsetsStart;
+    private final int namesStart;
+
+    /**
+     * Maps a pool file for reading.
+     * @param path the pool file
+     * @param starting the starting bracket the picks were made from
+     * @throws IOException if the file can't be read, isn't a pool file, is truncated or corrupt, or was built
+     * for other teams
+     */
+    public PoolFile(File path, Bracket starting) throws IOException {
+        this.starting = starting;
+        file = new RandomAccessFile(path, "r");
+        try {
+            if (file.length() < HEADER_SIZE || file.length() > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not a pool file");
+            }
+            buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException(path + " is not a pool file");
+            }
+            if (!Arrays.equals(readTeamNames(), firstRoundNames(starting))) {
+                throw new IOException(path + " was built for a different starting bracket");
+            }
+            count = buffer.getInt(COUNT_OFFSET);
+            // in long, so a corrupt count can't wrap around to an offset that looks fine
+            long namesAt = HEADER_SIZE + count * 12L + 4;
+            if (count < 0 || namesAt > buffer.capacity()) {
+                throw new IOException(path + " is truncated");
+            }
+            offsetsStart = HEADER_SIZE + count * 8;
+            namesStart = (int) namesAt;
+            int namesLength = buffer.getInt(offsetsStart + count * 4);
+            if (namesLength < 0 || (long) namesStart + namesLength > buffer.capacity()) {
+                throw new IOException(path + " is truncated");
+            }
+            // every name must run forwards inside the name bytes, so getPlayerName can trust the offsets
+            int previous = 0;
+            for (int i = 0; i <= count; i++) {
+                int offset = buffer.getInt(offsetsStart + i * 4);
+                if (offset < previous || offset > namesLength || (i == 0 && offset != 0)) {
+                    throw new IOException(path + " has a corrupt name table");
+                }
+                previous = offset;
+            }
+            brackets = buffer.duplicate().position(HEADER_SIZE).limit(offsetsStart).slice().asLongBuffer();
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of brackets in the pool
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param i index of the bracket, 0 to size() - 1
+     * @return the bracket's picks as {@link BracketCodec#encode(Bracket)} bits
+     */
+    public long getEncoded(int i) {
+        return brackets.get(i);
+    }
+
+    /**
+     * @param i index of the bracket, 0 to size() - 1
+     * @return name of the bracket's owner
+     * @throws IndexOutOfBoundsException if there is no bracket i
+     */
+    public String getPlayerName(int i) {
+        Objects.checkIndex(i, count);
+        int from = buffer.getInt(offsetsStart + i * 4);
+        int to = buffer.getInt(offsetsStart + (i + 1) * 4);
+        byte[] bytes = new byte[to - from];
+        buffer.duplicate().position(namesStart + from).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return every player name in file order, read from the file as each one is asked for
+     */
+    public List<String> getPlayerNames() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return getPlayerName(index);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * @param i index of the bracket, 0 to size() - 1
+     * @return the bracket played out from the starting bracket, with its owner's name
+     */
+    public Bracket getBracket(int i) {
+        return BracketCodec.decode(getEncoded(i), starting, getPlayerName(i));
+    }
+
+    /**
+     * Scores the whole pool straight from the mapped file.
+     * @param master the results, with every game played
+     * @return score of each bracket, in file order
+     * @throws IllegalArgumentException if a game of the master has not been played
+     */
+    public int[] scoreAll(Bracket master) {
+        return BracketCodec.scoreAll(brackets, BracketCodec.encode(master));
+    }
+
+    /**
+     * Unmaps nothing, as Java can't, but closes the file; the pool must not be read after this.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    /**
+     * Builds a pool file from every .ser file in a directory with a {@link BracketConverter}.
+     * Files that can't be read, hold an unfinished bracket or repeat a player's name are reported and left out.
+     * @param dir directory holding the .ser files
+     * @param out the pool file to write, replaced if it exists
+     * @param starting the starting bracket the brackets were made from
+     * @param errors where to report the files left out
+     * @return number of brackets written
+     * @throws IOException if the directory can't be listed or the pool file can't be written; the old pool
+     * file, if any, is then left as it was
+     */
+    public static int buildFromSer(File dir, File out, Bracket starting, PrintStream errors) throws IOException {
+        BracketConverter converter = new BracketConverter(starting, errors);
+        converter.toPool(dir, out);
+        return converter.getConverted();
+    }
+
+    private String[] readTeamNames() {
+        String[] names = new String[NUM_OF_TEAMS];
+        MappedByteBuffer header = buffer;
+        int offset = NAMES_OFFSET;
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            int length = header.getShort(offset);
+            offset += 2;
+            if (length < 0 || offset + length > HEADER_SIZE) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = header.get(offset + i);
+            }
+            offset += bytes.length;
+            names[t] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return names;
+    }
+
+    /**
+     * @return names of the 64 first round teams of a bracket, in draw order
+     */
+    static String[] firstRoundNames(Bracket b) {
+        String[] names = new String[NUM_OF_TEAMS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            names[t] = b.getTeamName(NUM_OF_GAMES + t);
+        }
+        return names;
+    }
+
+    /**
+     * Collects brackets in memory and writes the pool file when closed.
+     */
+    public static class Writer implements Closeable {
+        private final File path;
+        private final String[] teamNames;
+        private final HashSet<String> players = new HashSet<>();
+        private final ByteArrayOutputStream names = new ByteArrayOutputStream();
+        private long[] encoded = new long[1024];
+        private int[] nameEnds = new int[1024];
+        private int count;
+
+        /**
+         * @param path the pool file to write, replaced if it exists
+         * @param starting the starting bracket every bracket added was made from
+         */
+        public Writer(File path, Bracket starting) {
+            this.path = path;
+            teamNames = firstRoundNames(starting);
+        }
+
+        /**
+         * @return number of brackets added so far
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * @param b a finished bracket with an owner
+         * @throws IllegalArgumentException if a game has no pick, the first round differs from the starting
+         * bracket's, or the player already has a bracket in the pool
+         */
+        public void add(Bracket b) {
+            if (!Arrays.equals(firstRoundNames(b), teamNames)) {
+                throw new IllegalArgumentException("Bracket of " + b.getPlayerName() + " starts from other teams");
+            }
+            add(b.getPlayerName(), BracketCodec.encode(b));
+        }
+
+        /**
+         * @param playerName owner of the bracket
+         * @param bits the picks as {@link BracketCodec#encode(Bracket)} bits
+         * @throws IllegalArgumentException if the player already has a bracket in the pool
+         */
+        public void add(String playerName, long bits) {
+            String name = playerName == null ? "" : playerName;
+            if (!players.add(name)) {
+                throw new IllegalArgumentException(name + " already has a bracket in the pool");
+            }
+            if (count == encoded.length) {
+                encoded = Arrays.copyOf(encoded, count * 2);
+                nameEnds = Arrays.copyOf(nameEnds, count * 2);
+            }
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            names.write(bytes, 0, bytes.length);
+            encoded[count] = bits;
+            nameEnds[count] = names.size();
+            count++;
+        }
+
+        /**
+         * Writes the file. It is written next to the pool file under a temporary name and then moved over
+         * it, so readers see either the old pool or the whole new one, and a failed write leaves the old
+         * pool in place.
+         * @throws IOException if it can't be written or would pass 2 GB
+         */
+        @Override
+        public void close() throws IOException {
+            long size = HEADER_SIZE + count * 8L + (count + 1) * 4L + names.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("A pool file can't pass 2 GB");
+            }
+            File temp = File.createTempFile(path.getName(), ".tmp", path.getAbsoluteFile().getParentFile());
+            try {
+                try (FileOutputStream file = new FileOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(VERSION);
+                    out.writeInt(count);
+                    int headerUsed = NAMES_OFFSET;
+                    for (String team : teamNames) {
+                        byte[] bytes = team.getBytes(StandardCharsets.UTF_8);
+                        headerUsed += 2 + bytes.length;
+                        if (headerUsed > HEADER_SIZE) {
+                            throw new IOException("Team names do not fit in the pool header");
+                        }
+                        out.writeShort(bytes.length);
+                        out.write(bytes);
+                    }
+                    out.write(new byte[HEADER_SIZE - headerUsed]);
+                    for (int i = 0; i < count; i++) {
+                        out.writeLong(encoded[i]);
+                    }
+                    out.writeInt(0);
+                    for (int i = 0; i < count; i++) {
+                        out.writeInt(nameEnds[i]);
+                    }
+                    names.writeTo(out);
+                    out.flush();
+                    file.getFD().sync();
+                }
+                Files.move(temp.toPath(), path.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * How often each player in a pool finished in each place over a batch of simulated tournaments.
+ * The first few places are counted individually; every worse finish shares one last bucket.
+ */
+public class PoolOdds {
+    private final String[] playerNames;
+    /** counts[player * (trackedPlaces + 1) + place - 1] */
+    private final long[] counts;
+    private final int trackedPlaces;
+    private final long tournaments;
+
+    /**
+     * @param playerNames name of each player, in pool order
+     * @param counts finishing place counts, trackedPlaces + 1 per player
+     * @param trackedPlaces number of places counted individually
+     * @param tournaments number of tournaments the counts come from
+     */
+    public PoolOdds(String[] playerNames, long[] counts, int trackedPlaces, long tournaments) {
+        this.playerNames = playerNames;
+        this.counts = counts;
+        this.trackedPlaces = trackedPlaces;
+        this.tournaments = tournaments;
+    }
+
+    public int getPlayerCount() {
+        return playerNames.length;
+    }
+
+    public String getPlayerName(int player) {
+        return playerNames[player];
+    }
+
+    public int getTrackedPlaces() {
+        return trackedPlaces;
+    }
+
+    public long getTournaments() {
+        return tournaments;
+    }
+
+    /**
+     * @param player index of the player in the pool
+     * @param place finishing place, 1 to getTrackedPlaces()
+     * @return chance the player finishes exactly in that place
+     */
+    public double getProbability(int player, int place) {
+        if (place < 1 || place > trackedPlaces) {
+            throw new IllegalArgumentException("Only places 1 to " + trackedPlaces + " are tracked");
+        }
+        return (double) counts[player * (trackedPlaces + 1) + place - 1] / tournaments;
+    }
+
+    /**
+     * @param player index of the player in the pool
+     * @param places number of top places, 1 to getTrackedPlaces()
+     * @return chance the player finishes in one of the top places
+     */
+    public double getTopProbability(int player, int places) {
+        double total = 0;
+        for (int place = 1; place <= places; place++) {
+            total += getProbability(player, place);
+        }
+        return total;
+    }
+
+    /**
+     * @return one line per player with the chance of finishing in each tracked place
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("%-20s", "Player"));
+        for (int place = 1; place <= trackedPlaces; place++) {
+            sb.append(String.format("%10s", "#" + place));
+        }
+        sb.append('\n');
+        for (int p = 0; p < playerNames.length; p++) {
+            sb.append(String.format("%-20s", playerNames[p]));
+            for (int place = 1; place <= trackedPlaces; place++) {
+                sb.append(String.format("%10.4f", getProbability(p, place)));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
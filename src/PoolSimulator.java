@@ -0,0 +1,123 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Works out who is likely to win the office pool.
+ * Plays many tournaments, scores every player's bracket against each one and tallies where each player
+ * finished. Scores are thrown away as soon as a tournament is ranked, so memory stays at one score array
+ * and one rank histogram per worker no matter how many tournaments are played.
+ * Tournaments are played in the simulator's seeded blocks, so a seed replays the same pool outcome.
+ */
+public class PoolSimulator {
+    private static final int NUM_OF_GAMES = 63;
+    private static final int NUM_OF_TEAMS = 64;
+    private static final int NUM_OF_NODES = 127;
+    /** Highest score a bracket can get: 32 + 2*16 + 4*8 + 8*4 + 16*2 + 32*1 */
+    private static final int MAX_SCORE = 192;
+
+    private final TournamentSimulator simulator;
+    private final BracketColumns pool;
+    /** Id in the pool's team table of each starting bracket position */
+    private final byte[] poolIds;
+    /** Finishing places tracked individually; anything worse lands in one last bucket */
+    private final int trackedPlaces;
+    private final int threads;
+
+    /**
+     * @param simulator plays the tournaments
+     * @param starting the starting bracket the simulator was built from
+     * @param pool every player's bracket
+     * @param trackedPlaces how many finishing places to keep separate counts for, e.g. 3 for first to third
+     */
+    public PoolSimulator(TournamentSimulator simulator, Bracket starting, BracketColumns pool, int trackedPlaces) {
+        if (trackedPlaces < 1) {
+            throw new IllegalArgumentException("trackedPlaces must be positive: " + trackedPlaces);
+        }
+        this.simulator = simulator;
+        this.pool = pool;
+        this.trackedPlaces = trackedPlaces;
+        threads = Runtime.getRuntime().availableProcessors();
+        poolIds = new byte[NUM_OF_TEAMS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            poolIds[t] = pool.getTeamTable().idOf(starting.getTeamName(NUM_OF_GAMES + t));
+        }
+    }
+
+    /**
+     * Plays the tournaments across all cores and counts every player's finishing places.
+     * Tied players share the better place, so two players tied on top both count as first.
+     * @param tournaments number of tournaments to play
+     * @return each player's chance of finishing in each place
+     */
+    public PoolOdds run(long tournaments) {
+        return run(tournaments, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Same as {@link #run(long)}, always giving the same odds for the same seed on any number of threads.
+     * @param tournaments number of tournaments to play
+     * @param seed seed of the random streams
+     * @return each player's chance of finishing in each place
+     */
+    public PoolOdds run(long tournaments, long seed) {
+        long[] counts = TournamentSimulator.runBlocks(tournaments, seed, threads, PlacingWorker::new);
+
+        String[] names = new String[pool.size()];
+        for (int p = 0; p < names.length; p++) {
+            names[p] = pool.getPlayerName(p);
+        }
+        return new PoolOdds(names, counts, trackedPlaces, tournaments);
+    }
+
+    /**
+     * Plays tournaments on one thread, reusing the same arrays for every one.
+     * Counts places indexed [player * (trackedPlaces + 1) + place - 1], the last slot counting every worse place.
+     */
+    private class PlacingWorker implements TournamentSimulator.Worker {
+        private final int players = pool.size();
+        private final long[] counts = new long[players * (trackedPlaces + 1)];
+        private final int[] tree = new int[NUM_OF_NODES];
+        private final byte[] truth = new byte[NUM_OF_GAMES];
+        private final int[] scores = new int[players];
+        /* playersAbove[s] = number of players who scored more than s */
+        private final int[] playersAbove = new int[MAX_SCORE + 2];
+
+        PlacingWorker() {
+            for (int t = 0; t < NUM_OF_TEAMS; t++) {
+                tree[NUM_OF_GAMES + t] = t;
+            }
+        }
+
+        @Override
+        public long[] getCounts() {
+            return counts;
+        }
+
+        @Override
+        public void play(long n, SplittableRandom rng) {
+            for (long k = 0; k < n; k++) {
+                simulator.playTournament(tree, rng);
+                for (int i = 0; i < NUM_OF_GAMES; i++) {
+                    truth[i] = poolIds[tree[i]];
+                }
+                Arrays.fill(scores, 0);
+                pool.scoreRange(truth, scores, 0, players);
+
+                Arrays.fill(playersAbove, 0);
+                for (int score : scores) {
+                    playersAbove[score]++;
+                }
+                int above = 0;
+                for (int s = MAX_SCORE; s >= 0; s--) {
+                    int atScore = playersAbove[s];
+                    playersAbove[s] = above;
+                    above += atScore;
+                }
+                for (int p = 0; p < players; p++) {
+                    int place = Math.min(playersAbove[scores[p]], trackedPlaces);
+                    counts[p * (trackedPlaces + 1) + place]++;
+                }
+            }
+        }
+    }
+}
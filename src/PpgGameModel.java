@@ -0,0 +1,45 @@
+/**
+ * Rates teams by their season scoring instead of their seed.
+ * Each team's points scored and allowed per game give its Pythagorean expectation, the share of games
+ * it would win against an average opponent, and two expectations are combined with Bill James' log5:
+ * P(a beats b) = pa(1 - pb) / (pa(1 - pb) + pb(1 - pa)).
+ */
+public class PpgGameModel implements GameModel {
+    /** Pythagorean exponent commonly fitted to college basketball */
+    public static final double DEFAULT_EXPONENT = 11.5;
+
+    private final double exponent;
+
+    public PpgGameModel() {
+        this(DEFAULT_EXPONENT);
+    }
+
+    /**
+     * @param exponent Pythagorean exponent; larger values make scoring margins count for more
+     */
+    public PpgGameModel(double exponent) {
+        if (!(exponent > 0)) {
+            throw new IllegalArgumentException("exponent must be positive: " + exponent);
+        }
+        this.exponent = exponent;
+    }
+
+    /**
+     * @param team any team
+     * @return the share of games the team would win against an average opponent
+     */
+    public double expectation(Team team) {
+        double scored = Math.pow(team.getOffensePPG(), exponent);
+        double allowed = Math.pow(team.getDefensePPG(), exponent);
+        return scored / (scored + allowed);
+    }
+
+    @Override
+    public double winProbability(Team a, Team b) {
+        double pa = expectation(a);
+        double pb = expectation(b);
+        double aOnly = pa * (1 - pb);
+        double bOnly = pb * (1 - pa);
+        return aOnly + bOnly == 0 ? 0.5 : aOnly / (aOnly + bOnly);
+    }
+}
@@ -2,81 +2,288 @@ import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.scene.control.Pagination;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
 /** ScoreBoardPane class is the class the displays the Scoreboard from the Main GUI. It shows all the Player's names and their scores. */
 public class ScoreBoardTable {
-    /** Scores mapped to their respective players */
-    private HashMap<Bracket, Integer> scores;
-    private final int MAX_PLAYERS = 16;
+    /** Players per page of the table */
+    private static final int ROWS_PER_PAGE = 16;
+    /** Every player's score in order of placement; only the page being shown is copied into data */
+    private final Standings standings;
+    /** Players of a pool file, read by index only when their row is shown */
+    private List<String> poolPlayers = Collections.emptyList();
+    private int[] poolScores = new int[0];
+    /** Indices into poolPlayers, best score first, in pool order within a score */
+    private int[] poolOrder = new int[0];
+    /** poolAbove[s] is how many pool players scored more than s, for s up to the top pool score */
+    private int[] poolAbove = new int[0];
+    /** Pool players who are also in the standings; only their standings row is listed and counted */
+    private BitSet poolHidden = new BitSet();
+    /** Hash index of poolPlayers by name, open addressed: 1 plus the pool index, or 0 for an empty slot */
+    private int[] poolSlots = new int[0];
+    /** Hash of the name in each slot, so a lookup only reads names from the pool that are likely to match */
+    private int[] poolSlotHashes = new int[0];
     /** Organizes rows and columns of usernames and their scores in order of placement. Displayed by MarchMadnessGUI. */
-    private TableView<Bracket> scoreTable;
+    private TableView<Standings.Entry> scoreTable;
+    /** Holds scoreTable and flips between its pages. */
+    private Pagination pages;
     /** The leftmost column of scoreTable. */
-    private TableColumn<Bracket, String> userNameCol;
+    private TableColumn<Standings.Entry, Number> rankCol;
+    /** The middle column of scoreTable. */
+    private TableColumn<Standings.Entry, String> userNameCol;
     /** The rightmost column of scoreTable. */
-    private TableColumn<Bracket, Number> totalPtsCol;
+    private TableColumn<Standings.Entry, Number> totalPtsCol;
     /** List that reflects its changes immediately in JavaFX */
-    private ObservableList<Bracket> data;
-
-    /** ScoreBoardPane default constructor.
-     * The @SuppressWarnings("unchecked") annotation is used for the setAll() and addAll()
-     * methods to suppress the unchecked generic warning. By using the annotation, the coder
-     * acknowledges that they are aware of the potential type mismatch, but takes
-     * responsibility for ensuring that the objects being added are of the correct type at runtime. */
-    @SuppressWarnings("unchecked")
+    private ObservableList<Standings.Entry> data;
+
+    /** ScoreBoardPane default constructor. */
     public ScoreBoardTable() {
         scoreTable = new TableView<>();
         data = FXCollections.observableArrayList();
-        scores = new HashMap<>();
+        standings = new Standings();
+
+        rankCol = new TableColumn<>("Rank");
+        rankCol.setMinWidth(60);
+        rankCol.setMaxWidth(60);
+        rankCol.setStyle("-fx-border-width: 3px");
+        rankCol.setCellValueFactory(e -> new SimpleIntegerProperty(e.getValue().getRank()));
+        rankCol.setSortable(false);
 
         userNameCol = new TableColumn<>("Username");
         userNameCol.setMinWidth(140);
         userNameCol.setMaxWidth(140);
         userNameCol.setStyle("-fx-border-width: 3px");
-        userNameCol.setCellValueFactory(b -> new SimpleStringProperty(b.getValue().getPlayerName()));
-        userNameCol.setSortable(true);
+        userNameCol.setCellValueFactory(e -> new SimpleStringProperty(e.getValue().getPlayer()));
+        userNameCol.setSortable(false);
 
         /*
          * TableColumn totalPtsCol is the column on the right side of the table
-         * totalPtsCol.setCellValueFactory() passes the data to the TableView object, which is
-         *                                   automatically sorted with the TableColumn.SortType.ASCENDING
-         *                                   code line.
+         * totalPtsCol.setCellValueFactory() passes the data to the TableView object. The rows arrive
+         * already in order of placement from standings, so the columns aren't sortable: sorting
+         * would only reorder the page on screen.
          */
         totalPtsCol = new TableColumn<>("Total Points");
         totalPtsCol.setMinWidth(140);
         totalPtsCol.setMaxWidth(140);
         totalPtsCol.setStyle("-fx-border-width: 3px");
-        totalPtsCol.setCellValueFactory(b -> new SimpleIntegerProperty(scores.get(b.getValue())));
-        totalPtsCol.setSortable(true);
-        totalPtsCol.setSortType(TableColumn.SortType.ASCENDING); //sorts column from lowest to highest
+        totalPtsCol.setCellValueFactory(e -> new SimpleIntegerProperty(e.getValue().getScore()));
+        totalPtsCol.setSortable(false);
 
         scoreTable.setItems(data);
         scoreTable.setEditable(false);
+        scoreTable.getColumns().setAll(List.of(rankCol, userNameCol, totalPtsCol));
 
-        scoreTable.getColumns().setAll(userNameCol, totalPtsCol);
-        scoreTable.getSortOrder().addAll(totalPtsCol, userNameCol);
+        pages = new Pagination(1, 0);
+        pages.setPageFactory(page -> {
+            showPage(page);
+            return scoreTable;
+        });
     }
 
-    /** Adds a passed in player and their score to scores. Will update the existing player score or add new player if and only if there are fewer than 16 players. */
+    /** Adds a passed in player and their score to the standings, or updates the score of a player already shown. */
     public void addPlayer(Bracket name, int score) {
-        try {
-            if (scores == null) {
-                scores = new HashMap<>();
+        standings.put(name.getPlayerName(), score);
+        if (hideFromPool(name.getPlayerName())) {
+            sortPool();
+        }
+        refresh();
+    }
+
+    /**
+     * Adds every player at once, updating the table a single time at the end.
+     * @param players the players' brackets
+     * @param scores scores[i] is the score of players.get(i)
+     */
+    public void addPlayers(List<Bracket> players, int[] scores) {
+        boolean hidden = false;
+        for (int i = 0; i < scores.length; i++) {
+            standings.put(players.get(i).getPlayerName(), scores[i]);
+            hidden |= hideFromPool(players.get(i).getPlayerName());
+        }
+        if (hidden) {
+            sortPool();
+        }
+        refresh();
+    }
+
+    /**
+     * Ranks the players of a {@link PoolFile} along with the standings. They are ranked by their scores
+     * alone, a counting sort over the int scores. Each name is read once to index the pool by name,
+     * keeping only its hash, and after that only when its row is shown or looked up, so a pool of
+     * millions never becomes millions of strings. Within a score, standings players are listed first,
+     * then pool players in pool order. A player in both is listed once, with their standings score.
+     * @param players the pool players' names, such as {@link PoolFile#getPlayerNames()}
+     * @param scores scores[i] is the score of players.get(i), none negative
+     */
+    public void setPool(List<String> players, int[] scores) {
+        poolPlayers = players;
+        poolScores = scores;
+        int slots = Integer.highestOneBit(Math.max(1, scores.length) * 2 - 1) * 2;
+        poolSlots = new int[slots];
+        poolSlotHashes = new int[slots];
+        for (int i = 0; i < scores.length; i++) {
+            String name = players.get(i);
+            int hash = hash(name);
+            int slot = hash & (slots - 1);
+            while (poolSlots[slot] != 0) {
+                if (poolSlotHashes[slot] == hash && players.get(poolSlots[slot] - 1).equals(name)) {
+                    break;
+                }
+                slot = (slot + 1) & (slots - 1);
+            }
+            // a name repeated in the pool keeps its first index
+            if (poolSlots[slot] == 0) {
+                poolSlots[slot] = i + 1;
+                poolSlotHashes[slot] = hash;
+            }
+        }
+        poolHidden = new BitSet();
+        for (Standings.Entry e : standings.page(0, standings.size())) {
+            hideFromPool(e.getPlayer());
+        }
+        sortPool();
+        refresh();
+    }
+
+    /**
+     * @param player name of the player
+     * @return 1 plus the number of players with a higher score
+     * @throws IllegalArgumentException if the player isn't listed
+     */
+    public int getRank(String player) {
+        if (standings.contains(player)) {
+            return rankOf(standings.getScore(player));
+        }
+        int i = poolIndexOf(player);
+        if (i < 0) {
+            throw new IllegalArgumentException("No player named " + player);
+        }
+        return rankOf(poolScores[i]);
+    }
+
+    /** Accesses the table to be shown by the GUI, along with the controls to change pages */
+    public Pagination getScoreTable() {
+        return pages;
+    }
+
+    /** Recounts the pages and reloads the page being shown. */
+    private void refresh() {
+        int players = standings.size() + poolOrder.length;
+        pages.setPageCount(Math.max(1, (players + ROWS_PER_PAGE - 1) / ROWS_PER_PAGE));
+        showPage(pages.getCurrentPageIndex());
+    }
+
+    /**
+     * Shows one page of the standings and the pool merged by score.
+     */
+    private void showPage(int page) {
+        int offset = page * ROWS_PER_PAGE;
+        // binary search for how many of the rows above the page come from the standings
+        int low = Math.max(0, offset - poolOrder.length);
+        int high = Math.min(offset, standings.size());
+        while (low < high) {
+            int fromStandings = (low + high) / 2;
+            int standingsScore = standings.page(fromStandings, 1).get(0).getScore();
+            if (standingsScore >= poolScore(offset - fromStandings - 1)) {
+                low = fromStandings + 1;
+            } else {
+                high = fromStandings;
+            }
+        }
+        List<Standings.Entry> listed = standings.page(low, ROWS_PER_PAGE);
+        int s = 0;
+        int p = offset - low;
+        List<Standings.Entry> rows = new ArrayList<>(ROWS_PER_PAGE);
+        while (rows.size() < ROWS_PER_PAGE && (s < listed.size() || p < poolOrder.length)) {
+            if (p == poolOrder.length || (s < listed.size() && listed.get(s).getScore() >= poolScore(p))) {
+                Standings.Entry e = listed.get(s++);
+                rows.add(new Standings.Entry(e.getPlayer(), e.getScore(), rankOf(e.getScore())));
+            } else {
+                int score = poolScore(p);
+                rows.add(new Standings.Entry(poolPlayers.get(poolOrder[p++]), score, rankOf(score)));
+            }
+        }
+        data.setAll(rows);
+    }
+
+    /**
+     * Orders the pool players not hidden by score, best first, and counts how many score above each score.
+     */
+    private void sortPool() {
+        int top = 0;
+        for (int score : poolScores) {
+            top = Math.max(top, score);
+        }
+        int[] above = new int[top + 1];
+        int[] count = new int[top + 1];
+        for (int i = 0; i < poolScores.length; i++) {
+            if (!poolHidden.get(i)) {
+                count[poolScores[i]]++;
+            }
+        }
+        for (int s = top - 1; s >= 0; s--) {
+            above[s] = above[s + 1] + count[s + 1];
+        }
+        int[] next = above.clone();
+        int[] order = new int[poolScores.length - poolHidden.cardinality()];
+        for (int i = 0; i < poolScores.length; i++) {
+            if (!poolHidden.get(i)) {
+                order[next[poolScores[i]]++] = i;
             }
-            if (scores.get(name) != null || scores.size() < MAX_PLAYERS) {
-                scores.put(name, score);
-                data.add(name);
-                scoreTable.sort();
+        }
+        poolOrder = order;
+        poolAbove = above;
+    }
+
+    /**
+     * Leaves a pool player out of the pool rows, as they are in the standings.
+     * @return true if the player is in the pool and wasn't left out already
+     */
+    private boolean hideFromPool(String player) {
+        int i = poolIndexOf(player);
+        if (i < 0 || poolHidden.get(i)) {
+            return false;
+        }
+        poolHidden.set(i);
+        return true;
+    }
+
+    /**
+     * @return index of the player in the pool, or -1 if they aren't in it
+     */
+    private int poolIndexOf(String player) {
+        if (player == null || poolSlots.length == 0) {
+            return -1;
+        }
+        int hash = hash(player);
+        for (int slot = hash & (poolSlots.length - 1); poolSlots[slot] != 0; slot = (slot + 1) & (poolSlots.length - 1)) {
+            if (poolSlotHashes[slot] == hash && poolPlayers.get(poolSlots[slot] - 1).equals(player)) {
+                return poolSlots[slot] - 1;
             }
-        } catch (Exception e) {
-            System.out.println(e.getMessage());
         }
+        return -1;
+    }
+
+    /** String hash with the high bits mixed in, since the table is indexed by the low ones */
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /** Score of the pool player in the given place of the pool alone, counting from 0 */
+    private int poolScore(int place) {
+        return poolScores[poolOrder[place]];
     }
 
-    /** Accesses the table to be shown by the GUI */
-    public TableView<Bracket> getScoreTable() {
-        return scoreTable;
+    /** 1 plus the number of players, in the standings or the pool, scoring more */
+    private int rankOf(int score) {
+        int pool = score >= poolAbove.length ? 0 : poolAbove[score];
+        return 1 + standings.countAbove(score) + pool;
     }
 
 }
@@ -0,0 +1,313 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Every game's score from a run of simulated tournaments, kept on disk instead of being thrown away
+ * with each bracket. Tournaments are written as they are played into a memory-mapped file, so the heap
+ * only ever holds the chunk being filled, and ten million tournaments cost disk space rather than memory.
+ *
+ * The file is columnar: tournaments are grouped into chunks of CHUNK_SIZE, and inside a chunk each
+ * bracket slot's scores are stored one after another as ints, followed by each game's winner as a
+ * byte. Reading one slot across a chunk is then a single sequential run.
+ *
+ * Layout: a HEADER_SIZE byte header (magic, version, tournament count, the starting bracket's 64 team
+ * ids and the team names the ids refer to), then the chunks, each CHUNK_BYTES long.
+ */
+public class ScoreHistory implements Closeable {
+    /** Identifies a score history file, "MMSH" */
+    private static final int MAGIC = 0x4D4D5348;
+    private static final int VERSION = 1;
+    /** Bytes reserved for the header, including the team names */
+    private static final int HEADER_SIZE = 4096;
+    /** Tournaments per chunk */
+    private static final int CHUNK_SIZE = 4096;
+    private static final int NUM_OF_GAMES = 63;
+    /** Slots with a score: every slot but the champion's */
+    private static final int NUM_OF_SCORES = 126;
+    private static final int NUM_OF_TEAMS = 64;
+    /** Bytes of one chunk: a column of int scores per slot, then a column of winner ids per game */
+    private static final long CHUNK_BYTES = (long) CHUNK_SIZE * (NUM_OF_SCORES * 4 + NUM_OF_GAMES);
+    /** Offsets inside the header */
+    private static final int COUNT_OFFSET = 8;
+    private static final int TEAMS_OFFSET = 16;
+    private static final int NAMES_OFFSET = TEAMS_OFFSET + NUM_OF_TEAMS;
+    /** Scores at or above this are counted with it in the histograms */
+    public static final int MAX_SCORE = 255;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    /** Table the stored team ids refer to */
+    private final TeamTable teams;
+    /** Team id in each first round slot, indexed slot - 63 */
+    private final byte[] startingIds = new byte[NUM_OF_TEAMS];
+    private final MappedByteBuffer header;
+    /** The chunk being written, or null until the next tournament starts a new one */
+    private MappedByteBuffer chunk;
+    private long count;
+
+    /**
+     * Opens a history to add tournaments to, creating an empty one if the file does not exist yet.
+     * @param path the history file
+     * @param starting the starting bracket every recorded tournament was played from
+     * @throws IOException if the file can't be read, isn't a score history, or was written for another bracket
+     */
+    public ScoreHistory(File path, Bracket starting) throws IOException {
+        teams = starting.getTeamTable();
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            startingIds[t] = (byte) starting.getTeamId(NUM_OF_GAMES + t);
+        }
+        boolean created = !path.exists() || path.length() == 0;
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        try {
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (created) {
+                writeHeader();
+            } else {
+                readHeader(path);
+            }
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of tournaments recorded
+     */
+    public synchronized long size() {
+        return count;
+    }
+
+    /**
+     * Appends one simulated tournament: the score in every slot but the champion's and every game's winner.
+     * @param simulated a bracket played to the end from the starting bracket, with its scores set
+     * @throws IOException if the file can't grow
+     * @throws IllegalArgumentException if the bracket holds a team that is not in the table
+     */
+    public synchronized void record(Bracket simulated) throws IOException {
+        int t = (int) (count % CHUNK_SIZE);
+        if (t == 0 || chunk == null) {
+            chunk = mapChunk(count / CHUNK_SIZE, FileChannel.MapMode.READ_WRITE);
+        }
+        byte[] ids = teams.idsOf(simulated);
+        for (int slot = 1; slot <= NUM_OF_SCORES; slot++) {
+            chunk.putInt(scoreOffset(slot, t), simulated.getTeamScore(slot));
+        }
+        for (int game = 0; game < NUM_OF_GAMES; game++) {
+            chunk.put(winnerOffset(game, t), ids[game]);
+        }
+        count++;
+        header.putLong(COUNT_OFFSET, count);
+    }
+
+    /**
+     * Reads the whole history back, a chunk at a time, and counts margins, scores and upsets.
+     * @return the counts over every recorded tournament
+     * @throws IOException if the file can't be read, or a team's seed can't be looked up
+     */
+    public synchronized Summary summarize() throws IOException {
+        TeamRegistry registry = TeamRegistry.getInstance();
+        int[] seedOf = new int[teams.size()];
+        for (int id = 0; id < seedOf.length; id++) {
+            Team team = registry.getTeam(teams.nameOf(id));
+            seedOf[id] = team == null ? 0 : team.getRanking();
+        }
+        Summary summary = new Summary(count, Arrays.stream(seedOf).max().orElse(0));
+
+        // both teams of every game, refilled from the winner columns as the games go up the tree
+        byte[][] slotIds = new byte[NUM_OF_SCORES + 1][CHUNK_SIZE];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            Arrays.fill(slotIds[NUM_OF_GAMES + t], startingIds[t]);
+        }
+        int[] score1 = new int[CHUNK_SIZE];
+        int[] score2 = new int[CHUNK_SIZE];
+        for (long first = 0; first < count; first += CHUNK_SIZE) {
+            int tournaments = (int) Math.min(CHUNK_SIZE, count - first);
+            MappedByteBuffer in = mapChunk(first / CHUNK_SIZE, FileChannel.MapMode.READ_ONLY);
+            IntBuffer scores = in.duplicate().asIntBuffer();
+            for (int game = NUM_OF_GAMES - 1; game >= 0; game--) {
+                int left = 2 * game + 1;
+                int right = 2 * game + 2;
+                scores.position(scoreOffset(left, 0) / 4);
+                scores.get(score1, 0, tournaments);
+                scores.position(scoreOffset(right, 0) / 4);
+                scores.get(score2, 0, tournaments);
+                if (game > 0) {
+                    in.duplicate().position(winnerOffset(game, 0)).get(slotIds[game], 0, tournaments);
+                }
+                summary.countGame(AdvancementOdds.roundOf(game) - 1, tournaments, score1, score2,
+                        slotIds[left], slotIds[right], seedOf);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Flushes everything recorded to disk and closes the file.
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (chunk != null) {
+            chunk.force();
+        }
+        header.force();
+        file.close();
+    }
+
+    private MappedByteBuffer mapChunk(long index, FileChannel.MapMode mode) throws IOException {
+        return channel.map(mode, HEADER_SIZE + index * CHUNK_BYTES, CHUNK_BYTES);
+    }
+
+    /** Byte offset inside a chunk of one slot's score in its t-th tournament */
+    private static int scoreOffset(int slot, int t) {
+        return ((slot - 1) * CHUNK_SIZE + t) * 4;
+    }
+
+    /** Byte offset inside a chunk of one game's winner in its t-th tournament */
+    private static int winnerOffset(int game, int t) {
+        return NUM_OF_SCORES * CHUNK_SIZE * 4 + game * CHUNK_SIZE + t;
+    }
+
+    private void writeHeader() {
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putLong(COUNT_OFFSET, 0);
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            header.put(TEAMS_OFFSET + t, startingIds[t]);
+        }
+        String[] names = teams.getNames();
+        header.putInt(NAMES_OFFSET, names.length);
+        header.position(NAMES_OFFSET + 4);
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (header.position() + 2 + bytes.length > HEADER_SIZE) {
+                throw new IllegalArgumentException("Team names do not fit in the history header");
+            }
+            header.putShort((short) bytes.length);
+            header.put(bytes);
+        }
+    }
+
+    private void readHeader(File path) throws IOException {
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(path + " is not a score history");
+        }
+        count = header.getLong(COUNT_OFFSET);
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            if (header.get(TEAMS_OFFSET + t) != startingIds[t]) {
+                throw new IOException(path + " was recorded from a different starting bracket");
+            }
+        }
+        String[] names = new String[header.getInt(NAMES_OFFSET)];
+        header.position(NAMES_OFFSET + 4);
+        for (int i = 0; i < names.length; i++) {
+            byte[] bytes = new byte[header.getShort()];
+            header.get(bytes);
+            names[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (!Arrays.equals(names, teams.getNames())) {
+            throw new IOException(path + " was recorded for a different set of teams");
+        }
+    }
+
+    /**
+     * Counts taken over a whole history. Rounds are numbered by when the game is played,
+     * 0 for the first round up to 5 for the final, named by {@link AdvancementOdds#ROUND_NAMES}.
+     */
+    public static final class Summary {
+        public static final int NUM_OF_ROUNDS = AdvancementOdds.NUM_OF_ROUNDS - 1;
+
+        private final long tournaments;
+        /** margins[round][winner's score - loser's score] */
+        private final long[][] margins = new long[NUM_OF_ROUNDS][MAX_SCORE + 1];
+        /** scores[round][score], counting both teams of every game */
+        private final long[][] scores = new long[NUM_OF_ROUNDS][MAX_SCORE + 1];
+        /** games[better seed][worse seed], and upsets for the ones the worse seed won */
+        private final long[][] games;
+        private final long[][] upsets;
+
+        private Summary(long tournaments, int maxSeed) {
+            this.tournaments = tournaments;
+            games = new long[maxSeed + 1][maxSeed + 1];
+            upsets = new long[maxSeed + 1][maxSeed + 1];
+        }
+
+        private void countGame(int round, int n, int[] score1, int[] score2, byte[] team1, byte[] team2, int[] seedOf) {
+            long[] roundMargins = margins[round];
+            long[] roundScores = scores[round];
+            for (int t = 0; t < n; t++) {
+                int a = score1[t];
+                int b = score2[t];
+                roundMargins[Math.min(Math.abs(a - b), MAX_SCORE)]++;
+                roundScores[Math.max(0, Math.min(a, MAX_SCORE))]++;
+                roundScores[Math.max(0, Math.min(b, MAX_SCORE))]++;
+                int seed1 = seedOf[team1[t]];
+                int seed2 = seedOf[team2[t]];
+                int better = Math.min(seed1, seed2);
+                int worse = Math.max(seed1, seed2);
+                games[better][worse]++;
+                // a win by the team with the bigger seed number, never a game between equal seeds
+                if (seed1 != seed2 && (a > b ? seed1 : seed2) == worse) {
+                    upsets[better][worse]++;
+                }
+            }
+        }
+
+        /**
+         * @return number of tournaments counted
+         */
+        public long getTournaments() {
+            return tournaments;
+        }
+
+        /**
+         * @param round 0 for the first round up to 5 for the final
+         * @return how many games of the round were won by each margin, indexed by margin
+         */
+        public long[] getMargins(int round) {
+            return margins[round].clone();
+        }
+
+        /**
+         * @param round 0 for the first round up to 5 for the final
+         * @return how many times a team put up each score in the round, indexed by score
+         */
+        public long[] getScores(int round) {
+            return scores[round].clone();
+        }
+
+        /**
+         * @return the largest seed seen, or 0 if no team's seed was known
+         */
+        public int getMaxSeed() {
+            return games.length - 1;
+        }
+
+        /**
+         * @param seed1 seed of one team
+         * @param seed2 seed of the other, in either order
+         * @return how many games were played between the two seeds
+         */
+        public long getGames(int seed1, int seed2) {
+            return games[Math.min(seed1, seed2)][Math.max(seed1, seed2)];
+        }
+
+        /**
+         * @param seed1 seed of one team
+         * @param seed2 seed of the other, in either order
+         * @return how many of those games the team with the bigger seed number won
+         */
+        public long getUpsets(int seed1, int seed2) {
+            return upsets[Math.min(seed1, seed2)][Math.max(seed1, seed2)];
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Plays a game in exactly two draws with no tie to throw away, giving the same joint distribution of
+ * scores as drawing both from {@link TournamentInfo#generateScore} until they differ.
+ *
+ * Conditioned on no tie, P(score1 = a, score2 = b) is p1(a) p2(b) / Z for every a != b. That splits into
+ * score1 = a with chance p1(a) (1 - p2(a)) / Z, then score2 drawn from team 2's own distribution with a
+ * left out. The first comes from an alias table per pair of rankings. The second is generateScore itself
+ * on a draw that skips the slice of [0, 1) which gives team 2 the score a: generateScore only goes up
+ * with the draw, so every score owns one slice, found here exactly by searching the doubles.
+ *
+ * The tables for rankings 1 to {@link #MAX_RANKING} are all built when the class loads, so they are
+ * complete before any thread can see them. Other rankings fall back to the loop.
+ */
+final class ScoreSampler {
+    /** Highest ranking with tables; teams are seeded 1 to 16 */
+    static final int MAX_RANKING = 16;
+    /** Largest double below 1, the top of the range nextDouble draws from */
+    private static final double ONE_BELOW = Math.nextDown(1.0);
+    /** Buckets of each alias table, at least the number of scores of any ranking; picked by the top 6 bits */
+    private static final int BUCKETS = 64;
+    /** Scores are below this, so a ranking and a score index the slice tables without a range check */
+    private static final int SCORE_LIMIT = 256;
+    /** The 57 low bits of a draw, compared against a bucket's threshold */
+    private static final long THRESHOLD_BITS = (1L << 57) - 1;
+
+    /** MIN_SCORE[r] = lowest score a team of ranking r can get */
+    private static final int[] MIN_SCORE = new int[MAX_RANKING + 1];
+    /**
+     * Team 1's alias tables, BUCKETS entries for each pair at (pair(r1, r2) << 6). An entry holds the
+     * threshold below which the bucket keeps its own score, out of 2^57, shifted left by 6 over the
+     * bucket's alias.
+     */
+    private static final long[] PICKS = new long[(MAX_RANKING + 1) * (MAX_RANKING + 1) << 6];
+    /** For ranking r and score s at (r << 8 | s): the first draw giving s, or 1 if s can't happen */
+    private static final double[] SLICE_START = new double[(MAX_RANKING + 1) * SCORE_LIMIT];
+    /** ... and the width of the slice of draws giving s, its chance */
+    private static final double[] SLICE_WIDTH = new double[(MAX_RANKING + 1) * SCORE_LIMIT];
+
+    static {
+        Arrays.fill(SLICE_START, 1.0);
+        for (int r = 1; r <= MAX_RANKING; r++) {
+            MIN_SCORE[r] = TournamentInfo.generateScore(r, 0);
+            int max = TournamentInfo.generateScore(r, ONE_BELOW);
+            if (max - MIN_SCORE[r] >= BUCKETS || max >= SCORE_LIMIT) {
+                throw new IllegalStateException("Scores of ranking " + r + " don't fit the tables");
+            }
+            double start = 0;
+            for (int s = MIN_SCORE[r]; s <= max; s++) {
+                double end = s == max ? 1.0 : firstDrawReaching(r, s + 1);
+                SLICE_START[r << 8 | s] = start;
+                SLICE_WIDTH[r << 8 | s] = end - start;
+                start = end;
+            }
+        }
+        for (int r1 = 1; r1 <= MAX_RANKING; r1++) {
+            for (int r2 = 1; r2 <= MAX_RANKING; r2++) {
+                double[] weights = new double[BUCKETS];
+                for (int k = 0; k < BUCKETS && MIN_SCORE[r1] + k < SCORE_LIMIT; k++) {
+                    int s = MIN_SCORE[r1] + k;
+                    weights[k] = SLICE_WIDTH[r1 << 8 | s] * (1 - SLICE_WIDTH[r2 << 8 | s]);
+                }
+                buildAliasTable(weights, pair(r1, r2) << 6);
+            }
+        }
+    }
+
+    private ScoreSampler() {
+    }
+
+    /**
+     * Plays one game between teams of the given rankings.
+     * @param ranking1 seed of team 1
+     * @param ranking2 seed of team 2
+     * @param rng source of the draws
+     * @param scores receives team 1's score in scores[0] and team 2's in scores[1], never equal
+     */
+    static void play(int ranking1, int ranking2, SplittableRandom rng, int[] scores) {
+        if (ranking1 < 1 || ranking1 > MAX_RANKING || ranking2 < 1 || ranking2 > MAX_RANKING) {
+            playWithReplays(ranking1, ranking2, rng, scores);
+            return;
+        }
+        long bits = rng.nextLong();
+        int bucket = (int) (bits >>> 58);
+        long entry = PICKS[pair(ranking1, ranking2) << 6 | bucket];
+        int score1 = MIN_SCORE[ranking1] + ((bits & THRESHOLD_BITS) < (entry >>> 6) ? bucket : (int) (entry & 63));
+
+        // skip the slice of draws that would tie, which is empty if team 2 can't score score1
+        int slice = ranking2 << 8 | score1;
+        double width = SLICE_WIDTH[slice];
+        double u = rng.nextDouble() * (1 - width);
+        if (u >= SLICE_START[slice]) {
+            u = Math.min(u + width, ONE_BELOW);
+        }
+        scores[0] = score1;
+        scores[1] = TournamentInfo.generateScore(ranking2, u);
+    }
+
+    /**
+     * The model as first written: draw both scores until they differ.
+     */
+    static void playWithReplays(int ranking1, int ranking2, SplittableRandom rng, int[] scores) {
+        int score1 = 0;
+        int score2 = 0;
+        while (score1 == score2) {
+            score1 = TournamentInfo.generateScore(ranking1, rng.nextDouble());
+            score2 = TournamentInfo.generateScore(ranking2, rng.nextDouble());
+        }
+        scores[0] = score1;
+        scores[1] = score2;
+    }
+
+    private static int pair(int ranking1, int ranking2) {
+        return ranking1 * (MAX_RANKING + 1) + ranking2;
+    }
+
+    /**
+     * Walker's alias method: fills BUCKETS entries of PICKS from the given start so that bucket k comes
+     * out with chance weights[k] / total.
+     */
+    private static void buildAliasTable(double[] weights, int start) {
+        int n = weights.length;
+        double total = 0;
+        for (double w : weights) {
+            total += w;
+        }
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smalls = 0;
+        int larges = 0;
+        for (int k = 0; k < n; k++) {
+            scaled[k] = weights[k] * n / total;
+            if (scaled[k] < 1) {
+                small[smalls++] = k;
+            } else {
+                large[larges++] = k;
+            }
+        }
+        while (smalls > 0 && larges > 0) {
+            int s = small[--smalls];
+            int l = large[--larges];
+            PICKS[start + s] = threshold(scaled[s]) << 6 | l;
+            scaled[l] -= 1 - scaled[s];
+            if (scaled[l] < 1) {
+                small[smalls++] = l;
+            } else {
+                large[larges++] = l;
+            }
+        }
+        // what is left keeps its bucket, being 1 up to rounding
+        while (larges > 0) {
+            int k = large[--larges];
+            PICKS[start + k] = threshold(1) << 6 | k;
+        }
+        while (smalls > 0) {
+            int k = small[--smalls];
+            PICKS[start + k] = threshold(1) << 6 | k;
+        }
+    }
+
+    /**
+     * @return a chance in [0, 1] as a threshold out of 2^57
+     */
+    private static long threshold(double keep) {
+        return keep >= 1 ? 1L << 57 : (long) (keep * (1L << 57));
+    }
+
+    /**
+     * @return the smallest draw in [0, 1) that gives at least the score, by binary search over the
+     * bit patterns of the doubles, which for non-negative doubles sort the same way as the values
+     */
+    private static double firstDrawReaching(int ranking, int score) {
+        long low = 0;
+        long high = Double.doubleToLongBits(1.0);
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (TournamentInfo.generateScore(ranking, Double.longBitsToDouble(mid)) >= score) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return Double.longBitsToDouble(low);
+    }
+}
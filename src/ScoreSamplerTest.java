@@ -0,0 +1,91 @@
+import java.util.SplittableRandom;
+
+/**
+ * Plays the same pairings with the tie-replaying loop and with {@link ScoreSampler}, and checks that
+ * each team's scores, the winning margins and how often each team wins can't be told apart.
+ * Scores are compared with a two-sample chi-square test, passing below df + 5 * sqrt(2 * df), so a
+ * correct sampler fails about once in a million runs while a model off by a point is caught at once.
+ */
+public class ScoreSamplerTest {
+    private static final int GAMES = 400000;
+    private static final int[][] PAIRINGS = {{1, 16}, {8, 9}, {5, 5}, {2, 7}, {12, 4}};
+    /** Scores never go above this, and margins are shifted by it to stay positive */
+    private static final int MAX_SCORE = 256;
+
+    public static void main(String[] args) {
+        boolean passed = true;
+        for (int[] pairing : PAIRINGS) {
+            passed &= check(pairing[0], pairing[1]);
+        }
+        System.out.println(passed ? "PASS" : "FAIL");
+    }
+
+    private static boolean check(int ranking1, int ranking2) {
+        long[][] loop = play(ranking1, ranking2, false);
+        long[][] sampler = play(ranking1, ranking2, true);
+        String pairing = ranking1 + " vs " + ranking2 + ": ";
+        boolean passed = true;
+        String[] names = {"team 1 scores", "team 2 scores", "margins"};
+        for (int h = 0; h < names.length; h++) {
+            passed &= report(pairing + names[h], loop[h], sampler[h]);
+        }
+
+        // the win rates are two binomial proportions, so compare them with a z-test
+        double p1 = loop[3][0] / (double) GAMES;
+        double p2 = sampler[3][0] / (double) GAMES;
+        double pooled = (p1 + p2) / 2;
+        double z = Math.abs(p1 - p2) / Math.sqrt(pooled * (1 - pooled) * 2.0 / GAMES);
+        boolean wins = z < 5;
+        System.out.printf("%steam 1 wins %.4f with ties replayed, %.4f sampled, z = %.2f %s%n",
+                pairing, p1, p2, z, wins ? "ok" : "DIFFERENT");
+        return passed && wins;
+    }
+
+    /**
+     * @return histograms of team 1's score, team 2's score and the margin, then team 1's win count
+     */
+    private static long[][] play(int ranking1, int ranking2, boolean sampled) {
+        SplittableRandom rng = new SplittableRandom(sampled ? 19 : 91);
+        long[][] counts = {new long[MAX_SCORE], new long[MAX_SCORE], new long[2 * MAX_SCORE], new long[1]};
+        int[] scores = new int[2];
+        for (int g = 0; g < GAMES; g++) {
+            if (sampled) {
+                ScoreSampler.play(ranking1, ranking2, rng, scores);
+            } else {
+                ScoreSampler.playWithReplays(ranking1, ranking2, rng, scores);
+            }
+            if (scores[0] == scores[1]) {
+                throw new IllegalStateException("Game ended in a tie " + scores[0] + "-" + scores[1]);
+            }
+            boolean team1Wins = scores[0] > scores[1];
+            counts[0][scores[0]]++;
+            counts[1][scores[1]]++;
+            counts[2][scores[0] - scores[1] + MAX_SCORE]++;
+            if (team1Wins) {
+                counts[3][0]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Two-sample chi-square test of equal sized samples over the cells either one reached.
+     */
+    private static boolean report(String name, long[] a, long[] b) {
+        double chiSquare = 0;
+        int cells = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] + b[i] > 0) {
+                double difference = a[i] - b[i];
+                chiSquare += difference * difference / (a[i] + b[i]);
+                cells++;
+            }
+        }
+        int df = cells - 1;
+        double limit = df + 5 * Math.sqrt(2.0 * df);
+        boolean same = chiSquare < limit;
+        System.out.printf("%s chi-square %.1f on %d df (limit %.1f) %s%n",
+                name, chiSquare, df, limit, same ? "ok" : "DIFFERENT");
+        return same;
+    }
+}
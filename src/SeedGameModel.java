@@ -0,0 +1,20 @@
+/**
+ * The original model of {@link TournamentInfo#simulate(Bracket)}: each team draws a score weighted by
+ * its seed, and ties are replayed. The win probabilities are worked out exactly from the score
+ * distributions, so simulating with them gives the same odds as playing out the scores.
+ */
+public class SeedGameModel implements GameModel {
+    @Override
+    public double winProbability(Team a, Team b) {
+        return AdvancementCalculator.rankingWinProbabilities(new int[]{a.getRanking(), b.getRanking()})[0][1];
+    }
+
+    @Override
+    public double[][] winMatrix(Team[] teams) {
+        int[] rankings = new int[teams.length];
+        for (int t = 0; t < teams.length; t++) {
+            rankings[t] = teams[t].getRanking();
+        }
+        return AdvancementCalculator.rankingWinProbabilities(rankings);
+    }
+}
@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+/**
+ * Runs a batch of simulated tournaments and prints each team's advancement odds,
+ * then checks that a seeded batch comes out the same on one thread as on several.
+ */
+public class SimulatorTest {
+    public static void main(String[] args) {
+        try {
+            TournamentInfo info = new TournamentInfo();
+            Bracket starting = new Bracket(info.loadStartingBracket());
+            TournamentSimulator simulator = new TournamentSimulator(info, starting);
+
+            long tournaments = args.length > 0 ? Long.parseLong(args[0]) : 1000000;
+            long start = System.nanoTime();
+            AdvancementOdds odds = simulator.simulateBatch(tournaments);
+            long elapsed = (System.nanoTime() - start) / 1000000;
+
+            System.out.println(odds);
+            System.out.println(tournaments + " tournaments in " + elapsed + " ms");
+
+            start = System.nanoTime();
+            AdvancementOdds exact = simulator.exactOdds();
+            elapsed = (System.nanoTime() - start) / 1000;
+            System.out.println("Exact odds in " + elapsed + " us, largest difference from simulation: "
+                    + odds.maxDifference(exact));
+
+            long seeded = Math.min(tournaments, 200000);
+            AdvancementOdds oneThread = new TournamentSimulator(info, starting, 1).simulateBatch(seeded, 225);
+            AdvancementOdds manyThreads = new TournamentSimulator(info, starting, 7).simulateBatch(seeded, 225);
+            System.out.println("Same seed on 1 and 7 threads gives identical odds: "
+                    + (oneThread.maxDifference(manyThreads) == 0.0));
+        }
+        catch (IOException e) {
+            System.out.println("File not found");
+        }
+    }
+}
@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Players ranked by score, highest first, with no limit on how many.
+ * Kept in an indexable skip list: each link also records how many players it jumps over, so
+ * adding or changing a score, looking up a player's rank and finding the start of a page
+ * all take O(log n), and a page of k rows takes O(log n + k) to read.
+ * Players with equal scores are listed by name and share a rank.
+ */
+public class Standings {
+    private static final int MAX_LEVEL = 32;
+
+    /** One row of the standings */
+    public static final class Entry {
+        private final String player;
+        private final int score;
+        private final int rank;
+
+        Entry(String player, int score, int rank) {
+            this.player = player;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public String getPlayer() {
+            return player;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * @return 1 plus the number of players with a higher score
+         */
+        public int getRank() {
+            return rank;
+        }
+    }
+
+    private static final class Node {
+        final String player;
+        final int score;
+        final Node[] next;
+        /** width[i] = how many places next[i] is ahead of this node, or to the end of the list */
+        final int[] width;
+
+        Node(String player, int score, int levels) {
+            this.player = player;
+            this.score = score;
+            next = new Node[levels];
+            width = new int[levels];
+        }
+
+        /** @return true if this node is listed before the given player */
+        boolean before(int score, String player) {
+            return this.score > score || (this.score == score && this.player.compareTo(player) < 0);
+        }
+    }
+
+    private final Node head = new Node(null, 0, MAX_LEVEL);
+    private final HashMap<String, Node> nodes = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private int levels = 1;
+
+    /**
+     * Adds a player, or moves them if they are already listed.
+     * @param player name of the player
+     * @param score the player's score
+     */
+    public void put(String player, int score) {
+        Node old = nodes.get(player);
+        if (old != null) {
+            if (old.score == score) {
+                return;
+            }
+            nodes.remove(player);
+            unlink(old);
+        }
+        nodes.put(player, insert(player, score));
+    }
+
+    /**
+     * @param player name of the player
+     * @return true if the player was listed
+     */
+    public boolean remove(String player) {
+        Node node = nodes.remove(player);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * @return number of players listed
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @param player name of the player
+     * @return true if the player is listed
+     */
+    public boolean contains(String player) {
+        return nodes.containsKey(player);
+    }
+
+    /**
+     * @param score any score
+     * @return how many players scored more than that
+     */
+    public int countAbove(int score) {
+        return higherThan(score);
+    }
+
+    /**
+     * @param player name of the player
+     * @return the player's score
+     * @throws IllegalArgumentException if the player isn't listed
+     */
+    public int getScore(String player) {
+        return find(player).score;
+    }
+
+    /**
+     * @param player name of the player
+     * @return 1 plus the number of players with a higher score
+     * @throws IllegalArgumentException if the player isn't listed
+     */
+    public int getRank(String player) {
+        return higherThan(find(player).score) + 1;
+    }
+
+    /**
+     * @param k number of players wanted
+     * @return the k best players, best first
+     */
+    public List<Entry> top(int k) {
+        return page(0, k);
+    }
+
+    /**
+     * @param offset number of players to skip from the top
+     * @param limit most players to return
+     * @return the players from place offset + 1 on, best first
+     */
+    public List<Entry> page(int offset, int limit) {
+        List<Entry> rows = new ArrayList<>();
+        if (offset < 0 || offset >= size() || limit <= 0) {
+            return rows;
+        }
+        Node x = head;
+        int position = 0;
+        for (int i = levels - 1; i >= 0; i--) {
+            while (x.next[i] != null && position + x.width[i] <= offset + 1) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+        }
+        int rank = higherThan(x.score) + 1;
+        for (int i = 0; x != null && i < limit; i++, position++, x = x.next[0]) {
+            if (i > 0 && x.score != rows.get(i - 1).score) {
+                rank = position;
+            }
+            rows.add(new Entry(x.player, x.score, rank));
+        }
+        return rows;
+    }
+
+    private Node find(String player) {
+        Node node = nodes.get(player);
+        if (node == null) {
+            throw new IllegalArgumentException("No player named " + player);
+        }
+        return node;
+    }
+
+    /**
+     * @return how many players have a score above the given one
+     */
+    private int higherThan(int score) {
+        Node x = head;
+        int position = 0;
+        for (int i = levels - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].score > score) {
+                position += x.width[i];
+                x = x.next[i];
+            }
+        }
+        return position;
+    }
+
+    private Node insert(String player, int score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] position = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = levels - 1; i >= 0; i--) {
+            position[i] = i == levels - 1 ? 0 : position[i + 1];
+            while (x.next[i] != null && x.next[i].before(score, player)) {
+                position[i] += x.width[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int nodeLevels = 1;
+        while (nodeLevels < MAX_LEVEL && random.nextBoolean()) {
+            nodeLevels++;
+        }
+        if (nodeLevels > levels) {
+            for (int i = levels; i < nodeLevels; i++) {
+                position[i] = 0;
+                update[i] = head;
+                head.width[i] = nodes.size();
+            }
+            levels = nodeLevels;
+        }
+
+        Node node = new Node(player, score, nodeLevels);
+        for (int i = 0; i < nodeLevels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.width[i] = update[i].width[i] - (position[0] - position[i]);
+            update[i].width[i] = position[0] - position[i] + 1;
+        }
+        for (int i = nodeLevels; i < levels; i++) {
+            update[i].width[i]++;
+        }
+        return node;
+    }
+
+    /**
+     * Takes a node out of the list; the caller keeps the name map in step.
+     */
+    private void unlink(Node node) {
+        Node x = head;
+        for (int i = levels - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].before(node.score, node.player)) {
+                x = x.next[i];
+            }
+            if (x.next[i] == node) {
+                x.width[i] += node.width[i] - 1;
+                x.next[i] = node.next[i];
+            } else {
+                x.width[i]--;
+            }
+        }
+        while (levels > 1 && head.next[levels - 1] == null) {
+            levels--;
+        }
+    }
+}
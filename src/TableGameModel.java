@@ -0,0 +1,86 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks the result up in a table of win probabilities by seed, for example historical
+ * tournament results of each seed against each other seed.
+ */
+public class TableGameModel implements GameModel {
+    /** Allowed error when checking that table[a][b] and table[b][a] add up to 1 */
+    private static final double TOLERANCE = 1e-9;
+
+    /** bySeed[a - 1][b - 1] = chance a seed a team beats a seed b team */
+    private final double[][] bySeed;
+
+    /**
+     * @param bySeed bySeed[a - 1][b - 1] is the chance a seed a team beats a seed b team; must be
+     *               square with bySeed[a][b] + bySeed[b][a] = 1
+     * @throws IllegalArgumentException if the table isn't square or the probabilities don't add up
+     */
+    public TableGameModel(double[][] bySeed) {
+        this.bySeed = new double[bySeed.length][];
+        for (int a = 0; a < bySeed.length; a++) {
+            if (bySeed[a].length != bySeed.length) {
+                throw new IllegalArgumentException("Table must be square, row " + (a + 1) + " has " + bySeed[a].length + " entries");
+            }
+            this.bySeed[a] = bySeed[a].clone();
+        }
+        for (int a = 0; a < bySeed.length; a++) {
+            for (int b = a; b < bySeed.length; b++) {
+                double p = bySeed[a][b];
+                if (!(p >= 0 && p <= 1) || Math.abs(p + bySeed[b][a] - 1) > TOLERANCE) {
+                    throw new IllegalArgumentException("Seeds " + (a + 1) + " and " + (b + 1) + " don't add up to 1");
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a table from a text file: one line per seed from 1 down, each holding the chances of that
+     * seed beating seeds 1, 2, ... separated by spaces. Blank lines and lines starting with # are skipped.
+     * @param file the table file
+     * @return a model using the table
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if an entry isn't a number or the table fails the checks of the constructor
+     */
+    public static TableGameModel load(File file) throws IOException {
+        List<double[]> rows = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                double[] row = new double[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    try {
+                        row[i] = Double.parseDouble(fields[i]);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException(file + ": row " + (rows.size() + 1) + " has " + fields[i] + " for a chance");
+                    }
+                }
+                rows.add(row);
+            }
+        }
+        return new TableGameModel(rows.toArray(new double[0][]));
+    }
+
+    /**
+     * @throws IllegalArgumentException if a team's seed isn't in the table
+     */
+    @Override
+    public double winProbability(Team a, Team b) {
+        int seedA = a.getRanking();
+        int seedB = b.getRanking();
+        if (seedA < 1 || seedA > bySeed.length || seedB < 1 || seedB > bySeed.length) {
+            throw new IllegalArgumentException("No entry for seeds " + seedA + " and " + seedB);
+        }
+        return bySeed[seedA - 1][seedB - 1];
+    }
+}
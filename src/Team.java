@@ -10,9 +10,9 @@ public class Team{
   /** Value of 1-16 based on performance in their region */
   private final int ranking;
   /** PPG - points per game, offense - how many ppg scored */
-  public double offensePPG;
+  private final double offensePPG;
   /** PPG - points per game, defense - how many ppg this team allowed the opposing teams to score */
-  public double defensePPG;
+  private final double defensePPG;
 
   public Team(String name, String nickname, String info, int ranking, double oPPG, double dPPG){
     this.name = name;
@@ -0,0 +1,166 @@
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every team of the tournament and the starting bracket, read from teamInfo.txt and initialMatches.txt
+ * once per run and shared after that. Nothing in it changes once loaded, so it can be handed to any
+ * thread. Teams are indexed by the ids of the starting bracket's {@link TeamTable}, which makes looking
+ * one up from a bracket slot an array access.
+ */
+public final class TeamRegistry {
+    /** The loaded registry, null until the first call to getInstance */
+    private static volatile TeamRegistry instance;
+
+    /** Slots of the starting bracket, as read from initialMatches.txt */
+    private final List<String> startingSlots;
+    /** Ids of the starting bracket's teams */
+    private final TeamTable table;
+    /** Teams indexed by their id in table, null for a team missing from teamInfo.txt */
+    private final Team[] teamsById;
+    /** Every team in teamInfo.txt by name */
+    private final Map<String, Team> teamsByName;
+
+    private TeamRegistry(Map<String, Team> teamsByName, List<String> startingSlots) {
+        this.teamsByName = Collections.unmodifiableMap(teamsByName);
+        this.startingSlots = Collections.unmodifiableList(startingSlots);
+        table = new Bracket(new ArrayList<>(startingSlots)).getTeamTable();
+        teamsById = new Team[table.size()];
+        for (int id = 0; id < teamsById.length; id++) {
+            teamsById[id] = teamsByName.get(table.nameOf(id));
+        }
+    }
+
+    /**
+     * Loads the registry the first time it is called and returns the same one after that.
+     * @return the shared registry
+     * @throws IOException if teamInfo.txt or initialMatches.txt can't be read
+     */
+    public static TeamRegistry getInstance() throws IOException {
+        TeamRegistry registry = instance;
+        if (registry == null) {
+            synchronized (TeamRegistry.class) {
+                registry = instance;
+                if (registry == null) {
+                    registry = load();
+                    instance = registry;
+                }
+            }
+        }
+        return registry;
+    }
+
+    /**
+     * Reads both files into a new registry, without touching the shared one.
+     * @return a registry of its own
+     * @throws IOException if teamInfo.txt or initialMatches.txt can't be read
+     */
+    static TeamRegistry load() throws IOException {
+        return new TeamRegistry(loadTeams(), loadStartingSlots());
+    }
+
+    /**
+     * Reads every team in teamInfo.txt: name, nickname, info, ranking, offensive and defensive PPG,
+     * one per line, with a blank line after each team.
+     * @authors Artem, Rodrigo
+     */
+    private static Map<String, Team> loadTeams() throws IOException {
+        Map<String, Team> teams = new HashMap<>();
+        String name;
+        try (BufferedReader br = open("teamInfo.txt")) {
+            while ((name = br.readLine()) != null) {
+                String nickname = br.readLine();
+                String info = br.readLine();
+                int ranking = Integer.parseInt(br.readLine());
+                double offensivePPG = Double.parseDouble(br.readLine());
+                double defensivePPG = Double.parseDouble(br.readLine());
+
+                br.readLine();   //gets rid of empty line between team infos
+
+                teams.put(name, new Team(name, nickname, info, ranking, offensivePPG, defensivePPG));
+            }
+        }
+        return teams;
+    }
+
+    /**
+     * Reads the starting bracket slots from initialMatches.txt, one name per line.
+     * @authors Matt, Artem
+     */
+    private static List<String> loadStartingSlots() throws IOException {
+        List<String> starting = new ArrayList<>();
+        String name;
+        try (BufferedReader br = open("initialMatches.txt")) {
+            while ((name = br.readLine()) != null) {
+                starting.add(name);
+            }
+        }
+        return starting;
+    }
+
+    private static BufferedReader open(String resource) throws IOException {
+        InputStream in = TeamRegistry.class.getResourceAsStream(resource);
+        if (in == null) {
+            throw new FileNotFoundException(resource + " is not on the classpath");
+        }
+        return new BufferedReader(new InputStreamReader(in));
+    }
+
+    /**
+     * @return the slots of the starting bracket, read-only
+     */
+    public List<String> getStartingSlots() {
+        return startingSlots;
+    }
+
+    /**
+     * @return the ids of the starting bracket's teams
+     */
+    public TeamTable getTeamTable() {
+        return table;
+    }
+
+    /**
+     * @param id a team id from {@link #getTeamTable()}
+     * @return the team, or null for an empty slot or a team missing from teamInfo.txt
+     */
+    public Team getTeam(int id) {
+        return id == TeamTable.EMPTY ? null : teamsById[id];
+    }
+
+    /**
+     * @param name name of the team
+     * @return the team, or null if there is no such team
+     */
+    public Team getTeam(String name) {
+        return teamsByName.get(name);
+    }
+
+    /**
+     * Looks up the team in one slot of a bracket, by id when the bracket uses the starting table.
+     * @param bracket any bracket
+     * @param slot index in the bracket tree
+     * @return the team, or null for an empty slot or unknown team
+     */
+    public Team getTeam(Bracket bracket, int slot) {
+        TeamTable teams = bracket.getTeamTable();
+        if (teams == table || teams.equals(table)) {
+            return getTeam(bracket.getTeamId(slot));
+        }
+        return getTeam(bracket.getTeamName(slot));
+    }
+
+    /**
+     * @return every team by name, read-only
+     */
+    public Map<String, Team> getTeams() {
+        return teamsByName;
+    }
+}
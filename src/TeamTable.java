@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Immutable lookup between team names and the small integer ids a {@link Bracket} stores in its slots.
+ * Ids are assigned in starting bracket order, so for the real tournament team t is the team
+ * that starts at index 63 + t of the tree. Brackets built from the same teams share one table,
+ * which lets two brackets be compared id for id instead of name for name.
+ */
+public final class TeamTable {
+    /** Id stored in a bracket slot that has no team picked yet */
+    public static final byte EMPTY = -1;
+    /** Largest number of teams a table can hold, ids have to fit in a byte */
+    public static final int MAX_TEAMS = Byte.MAX_VALUE;
+
+    /** Most recently built table, reused while brackets keep coming from the same starting teams */
+    private static volatile TeamTable lastTable;
+
+    /** Team names indexed by id */
+    private final String[] names;
+    /** Reverse lookup from name to id */
+    private final HashMap<String, Byte> ids;
+
+    private TeamTable(String[] names) {
+        this.names = names;
+        ids = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            ids.put(names[i], (byte) i);
+        }
+    }
+
+    /**
+     * Returns a table for the given bracket slots, reusing the previous one when the teams match.
+     * Teams in the first round (the last 64 slots) get the lowest ids in slot order,
+     * any other names are appended after them. Empty strings never get an id.
+     * @param slots bracket slots in tree order
+     * @return the shared table for those teams
+     */
+    static TeamTable forSlots(List<String> slots) {
+        int firstLeaf = Math.max(0, slots.size() / 2);
+        ArrayList<String> ordered = new ArrayList<>();
+        addTeams(ordered, slots.subList(firstLeaf, slots.size()));
+        addTeams(ordered, slots.subList(0, firstLeaf));
+        if (ordered.size() > MAX_TEAMS) {
+            throw new IllegalArgumentException("Too many teams for one bracket: " + ordered.size());
+        }
+        String[] names = ordered.toArray(new String[0]);
+
+        TeamTable table = lastTable;
+        if (table == null || !Arrays.equals(table.names, names)) {
+            table = new TeamTable(names);
+            lastTable = table;
+        }
+        return table;
+    }
+
+    private static void addTeams(ArrayList<String> ordered, List<String> slots) {
+        for (String name : slots) {
+            if (!name.isEmpty() && !ordered.contains(name)) {
+                ordered.add(name);
+            }
+        }
+    }
+
+    /**
+     * @param name team name, or "" for an empty slot
+     * @return the team's id, or {@link #EMPTY} for ""
+     * @throws IllegalArgumentException if the team is not in this table
+     */
+    public byte idOf(String name) {
+        if (name.isEmpty()) {
+            return EMPTY;
+        }
+        Byte id = ids.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown team: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Expresses every slot of a bracket in this table's ids.
+     * @param b the bracket to convert
+     * @return the team id of each of the bracket's slots
+     * @throws IllegalArgumentException if the bracket holds a team that is not in this table
+     */
+    public byte[] idsOf(Bracket b) {
+        int size = b.getBracket().size();
+        byte[] slots = new byte[size];
+        boolean sameTable = equals(b.getTeamTable());
+        for (int i = 0; i < size; i++) {
+            slots[i] = sameTable ? (byte) b.getTeamId(i) : idOf(b.getTeamName(i));
+        }
+        return slots;
+    }
+
+    /**
+     * @return every team name, indexed by id
+     */
+    public String[] getNames() {
+        return names.clone();
+    }
+
+    /**
+     * @param id team id, or {@link #EMPTY}
+     * @return the team's name, or "" for {@link #EMPTY}
+     */
+    public String nameOf(int id) {
+        return id == EMPTY ? "" : names[id];
+    }
+
+    /**
+     * @return number of teams in the table
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Two tables are equal when they give every team the same id.
+     */
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof TeamTable && Arrays.equals(names, ((TeamTable) o).names);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(names);
+    }
+}
@@ -1,6 +1,7 @@
 import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
 
 
 /**
@@ -8,52 +9,31 @@ import java.util.HashMap;
  * Created by Artem on 5/2/2017.
  */
 public class TournamentInfo{
+    /** The shared, already loaded teams and starting bracket */
+    private final TeamRegistry registry;
     /** Access Team objects using their Team.name */
-    HashMap<String, Team> teams;
+    Map<String, Team> teams;
+    /** Whether games are played by {@link ScoreSampler#play} rather than replayed until the scores differ */
+    private boolean closedFormScores;
 
     /**
-     * Constructor
+     * Constructor. Only the first TournamentInfo of a run reads the files; the rest share what it loaded.
      * @throws IOException - Loading "teamInfo.txt" file
      * */
     public TournamentInfo() throws IOException{
-        teams = new HashMap<>();
-        loadFromFile();
+        registry = TeamRegistry.getInstance();
+        teams = registry.getTeams();
     }
 
     /**
-     * This private method will load all the team information from the teamInfo.txt file via a BufferedReader and load each team into
-     * the teams HashMap using their name as the key and the actual Team object as the data.
-     * @authors Artem, Rodrigo
-     * @throws IOException - while loading "teamInfo.txt" file if missing.
+     * Chooses how {@link #simulate(Bracket)} draws the scores of a game. Both give the same distribution of
+     * winners and scores, but the same seed gives different results in each. Only a few percent of games
+     * tie, so replaying them costs less than the table lookups of the closed form and stays the default.
+     * @param closedForm -- true to draw each game in exactly two draws with {@link ScoreSampler},
+     * false (the default) to draw both scores again until they differ
      */
-    private void loadFromFile() throws IOException{
-        String name;
-        String nickname;
-        String info;
-        int ranking;
-        double offensivePPG;
-        double defensivePPG;
-
-
-        InputStream u = getClass().getResourceAsStream("teamInfo.txt");
-        BufferedReader br = new BufferedReader(new InputStreamReader(u));
-
-        while((name = br.readLine()) != null){
-            nickname = br.readLine();
-            info = br.readLine();
-            ranking = Integer.parseInt(br.readLine());
-            offensivePPG = Double.parseDouble(br.readLine());
-            defensivePPG = Double.parseDouble(br.readLine());
-
-            Team newTeam = new Team(name, nickname, info, ranking, offensivePPG, defensivePPG); //creates team with info
-
-            br.readLine();   //gets rid of empty line between team infos
-
-            teams.put(newTeam.getName(), newTeam);   //map team name with respective team object
-        }
-
-        br.close();
-
+    public void setClosedFormScores(boolean closedForm){
+        closedFormScores = closedForm;
     }
 
     /**
@@ -63,33 +43,37 @@ public class TournamentInfo{
      * @param startingBracket -- the bracket to be simulated upon. The master bracket
      */
     public void simulate(Bracket startingBracket){
+        simulate(startingBracket, new SplittableRandom());
+    }
+
+    /**
+     * Same as {@link #simulate(Bracket)}, always giving the same results and scores for the same seed.
+     * @param startingBracket -- the bracket to be simulated upon. The master bracket
+     * @param seed -- seed of the random draws
+     */
+    public void simulate(Bracket startingBracket, long seed){
+        simulate(startingBracket, new SplittableRandom(seed));
+    }
+
+    private void simulate(Bracket startingBracket, SplittableRandom rng){
+        int[] scores = new int[2];
         for (int i = 62; i >= 0; i--) {
             int index1 = 2 * i + 1;
             int index2 = 2 * i + 2;
 
-            Team team1 = teams.get(startingBracket.getBracket().get(index1));
-            Team team2 = teams.get(startingBracket.getBracket().get(index2));
-
-            int score1 = 0;
-            int score2 = 0;
-            while(score1 == score2) {
-                /* [chris] 4/7/23: This formula generates a random integer between 56 and 137,
-                with the range of values skewed towards the upper end for higher-ranked
-                teams. The rankWeight variable adjusts the random number generated
-                by Math.random() based on the ranking of the team, making it more
-                likely for higher-ranked teams to obtain a higher final score.
-                */
-                double rankWeight1 = 0.7 + (team1.getRanking() * 0.02);
-                score1 = (int) (((Math.random() * 61 * rankWeight1) + 75) * rankWeight1);
+            Team team1 = registry.getTeam(startingBracket, index1);
+            Team team2 = registry.getTeam(startingBracket, index2);
 
-                double rankWeight2 = 0.7 + (team2.getRanking() * 0.02);
-                score2 = (int) (((Math.random() * 61 * rankWeight2) + 75) * rankWeight2);
+            if(closedFormScores) {
+                ScoreSampler.play(team1.getRanking(), team2.getRanking(), rng, scores);
+            } else {
+                ScoreSampler.playWithReplays(team1.getRanking(), team2.getRanking(), rng, scores);
             }
 
-            startingBracket.setTeamScore(index1, score1);
-            startingBracket.setTeamScore(index2, score2);
+            startingBracket.setTeamScore(index1, scores[0]);
+            startingBracket.setTeamScore(index2, scores[1]);
 
-            if(score1 > score2) {
+            if(scores[0] > scores[1]) {
                 startingBracket.moveTeamUp(index1);
             } else {
                 startingBracket.moveTeamUp(index2);
@@ -98,24 +82,31 @@ public class TournamentInfo{
     }
 
     /**
-     * reads Strings from initialMatches.txt into an ArrayList in order to construct the starting bracket
+     * Turns one uniform random draw into a final score for a team of the given ranking.
+     * Shared by {@link #simulate(Bracket)} and {@link TournamentSimulator} so both use the same model.
+     * @param ranking -- the team's seed, 1-16
+     * @param random -- a uniform draw in [0, 1)
+     * @return the team's final score
+     */
+    static int generateScore(int ranking, double random){
+        /* [chris] 4/7/23: This formula generates a random integer between 56 and 137,
+        with the range of values skewed towards the upper end for higher-ranked
+        teams. The rankWeight variable adjusts the random number generated
+        by Math.random() based on the ranking of the team, making it more
+        likely for higher-ranked teams to obtain a higher final score.
+        */
+        double rankWeight = 0.7 + (ranking * 0.02);
+        return (int) (((random * 61 * rankWeight) + 75) * rankWeight);
+    }
+
+    /**
+     * returns the Strings of initialMatches.txt in an ArrayList in order to construct the starting bracket
      * @authors Matt, Artem
-     * @return ArrayList of Strings
+     * @return ArrayList of Strings, a new copy each call
      * @throws IOException - loading "initialMatches.txt";
      */
     public ArrayList<String> loadStartingBracket() throws IOException{
-        String name;
-        ArrayList<String> starting = new ArrayList<>();
-
-        InputStream u = getClass().getResourceAsStream("initialMatches.txt");
-        BufferedReader br = new BufferedReader(new InputStreamReader(u));
-
-        while((name = br.readLine()) != null){
-            starting.add(name);
-        }
-
-        br.close();
-        return starting;
+        return new ArrayList<>(registry.getStartingSlots());
     }
 
     /**
@@ -0,0 +1,287 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Batch version of {@link TournamentInfo#simulate(Bracket)}.
+ * Runs many independent tournaments across all cores and counts how far every team gets,
+ * without touching a Bracket or any Strings inside the simulation loop.
+ * Each worker owns its own SplittableRandom so there is no contention on Math.random().
+ * A batch is cut into fixed size blocks and block b always plays from the b-th stream split off
+ * the seed, whichever thread picks it up, so the same seed gives the same counts on any number of threads.
+ * Who wins a game comes from a {@link GameModel}, asked once for every pairing up front,
+ * so playing a game is one lookup and one random draw.
+ */
+public class TournamentSimulator {
+    /** Number of games in a 64 team tournament, i.e. the internal nodes of the bracket tree */
+    private static final int NUM_OF_GAMES = 63;
+    /** Number of teams in the starting bracket */
+    private static final int NUM_OF_TEAMS = 64;
+    /** Size of the bracket tree */
+    private static final int NUM_OF_NODES = 127;
+    /** Tournaments played from one random stream; fixed so results don't depend on the thread count */
+    static final int BLOCK_SIZE = 1 << 14;
+
+    /** Team names in starting bracket order */
+    private final String[] teamNames;
+    /** winMatrix[a][b] = chance team a beats team b, from the game model */
+    private final double[][] winMatrix;
+    /** winMatrix flattened to [a * NUM_OF_TEAMS + b] for the simulation loop */
+    private final double[] winProbability;
+    /** Number of worker threads used by a batch */
+    private final int threads;
+
+    /**
+     * @param info team data used to look up each team's ranking
+     * @param startingBracket bracket whose last 64 entries are the first round matchups
+     */
+    public TournamentSimulator(TournamentInfo info, Bracket startingBracket) {
+        this(info, startingBracket, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param info team data used to look up each team's ranking
+     * @param startingBracket bracket whose last 64 entries are the first round matchups
+     * @param threads number of worker threads to use
+     */
+    public TournamentSimulator(TournamentInfo info, Bracket startingBracket, int threads) {
+        this(info, startingBracket, new SeedGameModel(), threads);
+    }
+
+    /**
+     * @param info team data handed to the game model
+     * @param startingBracket bracket whose last 64 entries are the first round matchups
+     * @param model decides how likely each team is to beat each other team
+     * @param threads number of worker threads to use
+     */
+    public TournamentSimulator(TournamentInfo info, Bracket startingBracket, GameModel model, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.threads = threads;
+        teamNames = new String[NUM_OF_TEAMS];
+        Team[] teams = new Team[NUM_OF_TEAMS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            teamNames[t] = startingBracket.getBracket().get(NUM_OF_GAMES + t);
+            teams[t] = info.getTeam(teamNames[t]);
+            if (teams[t] == null) {
+                throw new IllegalArgumentException("No team info for " + teamNames[t]);
+            }
+        }
+        winMatrix = model.winMatrix(teams);
+        winProbability = new double[NUM_OF_TEAMS * NUM_OF_TEAMS];
+        for (int a = 0; a < NUM_OF_TEAMS; a++) {
+            System.arraycopy(winMatrix[a], 0, winProbability, a * NUM_OF_TEAMS, NUM_OF_TEAMS);
+        }
+    }
+
+    /**
+     * Simulates the given number of tournaments and returns how often each team reached each round.
+     * @param tournaments number of tournaments to play
+     * @return per-team, per-round advancement probabilities
+     */
+    public AdvancementOdds simulateBatch(long tournaments) {
+        return simulateBatch(tournaments, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Simulates the given number of tournaments from a seed. The same seed and number of tournaments
+     * always give the same result, on any number of threads.
+     * @param tournaments number of tournaments to play
+     * @param seed seed of the random streams
+     * @return per-team, per-round advancement probabilities
+     */
+    public AdvancementOdds simulateBatch(long tournaments, long seed) {
+        long[] counts = runBlocks(tournaments, seed, threads, CountingWorker::new);
+
+        double[][] probabilities = new double[NUM_OF_TEAMS][AdvancementOdds.NUM_OF_ROUNDS];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            probabilities[t][0] = 1.0;
+            for (int r = 1; r < AdvancementOdds.NUM_OF_ROUNDS; r++) {
+                probabilities[t][r] = (double) counts[t * AdvancementOdds.NUM_OF_ROUNDS + r] / tournaments;
+            }
+        }
+        return new AdvancementOdds(teamNames.clone(), probabilities);
+    }
+
+    /**
+     * Works out the same per-team, per-round probabilities exactly, without any simulation.
+     * Useful for checking how far a {@link #simulateBatch(long)} estimate is from the true odds.
+     * @return exact advancement odds under the simulator's game model
+     */
+    public AdvancementOdds exactOdds() {
+        return AdvancementCalculator.compute(teamNames, winMatrix);
+    }
+
+    /**
+     * The chance of every team winning every game under the simulator's game model, as used by
+     * {@link BracketOptimizer}.
+     * @return reach[node][team], teams in starting bracket order
+     */
+    public double[][] reachProbabilities() {
+        return AdvancementCalculator.reachProbabilities(winMatrix);
+    }
+
+    /**
+     * Plays tournaments for a batch on one thread, adding up whatever it counts as it goes.
+     * Each thread gets its own worker, which plays any number of blocks.
+     */
+    interface Worker {
+        /**
+         * @param n number of tournaments to play
+         * @param rng the random stream of the block being played
+         */
+        void play(long n, SplittableRandom rng);
+
+        /**
+         * @return the counts from every block this worker played
+         */
+        long[] getCounts();
+    }
+
+    /**
+     * Plays a batch in blocks of {@link #BLOCK_SIZE} tournaments across the given number of threads.
+     * Block b is always played from the b-th stream split off the seed, and counts are added up as
+     * whole numbers, so the total doesn't depend on which thread played which block.
+     * @param tournaments number of tournaments to play
+     * @param seed seed of the random streams
+     * @param threads number of threads to use
+     * @param workers makes one worker per thread
+     * @return the workers' counts added together
+     */
+    static long[] runBlocks(long tournaments, long seed, int threads, Supplier<Worker> workers) {
+        if (tournaments < 1) {
+            throw new IllegalArgumentException("tournaments must be positive: " + tournaments);
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        long blocks = (tournaments + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        long[] nextBlock = new long[1];
+        // hands out blocks in order, each with the stream split off for it
+        Object dealer = new Object();
+
+        long[] counts = null;
+        ExecutorService pool = Executors.newFixedThreadPool((int) Math.min(threads, blocks));
+        try {
+            List<Future<long[]>> results = new ArrayList<>();
+            for (int w = 0; w < Math.min(threads, blocks); w++) {
+                results.add(pool.submit(() -> {
+                    Worker worker = workers.get();
+                    while (true) {
+                        long block;
+                        SplittableRandom rng;
+                        synchronized (dealer) {
+                            block = nextBlock[0]++;
+                            if (block >= blocks) {
+                                return worker.getCounts();
+                            }
+                            rng = root.split();
+                        }
+                        worker.play(Math.min(BLOCK_SIZE, tournaments - block * BLOCK_SIZE), rng);
+                    }
+                }));
+            }
+            for (Future<long[]> f : results) {
+                long[] partial = f.get();
+                if (counts == null) {
+                    counts = partial.clone();
+                } else {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += partial[i];
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return counts;
+    }
+
+    /**
+     * Counts how far every team gets.
+     * The tree holds team indices instead of names, walked from the last game up to the championship
+     * exactly like {@link TournamentInfo#simulate(Bracket)}.
+     * Counts are indexed [team * NUM_OF_ROUNDS + round].
+     */
+    private class CountingWorker implements Worker {
+        private final long[] counts = new long[NUM_OF_TEAMS * AdvancementOdds.NUM_OF_ROUNDS];
+        private final int[] tree = new int[NUM_OF_NODES];
+        private final int[] roundOf = new int[NUM_OF_GAMES];
+
+        CountingWorker() {
+            for (int i = 0; i < NUM_OF_GAMES; i++) {
+                roundOf[i] = AdvancementOdds.roundOf(i);
+            }
+            for (int t = 0; t < NUM_OF_TEAMS; t++) {
+                tree[NUM_OF_GAMES + t] = t;
+            }
+        }
+
+        @Override
+        public void play(long n, SplittableRandom rng) {
+            for (long k = 0; k < n; k++) {
+                playTournament(tree, rng);
+                for (int i = 0; i < NUM_OF_GAMES; i++) {
+                    counts[tree[i] * AdvancementOdds.NUM_OF_ROUNDS + roundOf[i]]++;
+                }
+            }
+        }
+
+        @Override
+        public long[] getCounts() {
+            return counts;
+        }
+    }
+
+    /**
+     * Plays one tournament, filling the game nodes of the tree with the index of each winner.
+     * @param tree 127 nodes; the last 64 must hold 0-63 in order and are left untouched
+     * @param rng random stream to draw scores from
+     */
+    void playTournament(int[] tree, SplittableRandom rng) {
+        for (int i = NUM_OF_GAMES - 1; i >= 0; i--) {
+            int team1 = tree[2 * i + 1];
+            int team2 = tree[2 * i + 2];
+            tree[i] = rng.nextDouble() < winProbability[team1 * NUM_OF_TEAMS + team2] ? team1 : team2;
+        }
+    }
+
+    /**
+     * Plays n tournaments and keeps every result, for scoring brackets against a sample of outcomes.
+     * @param n number of tournaments
+     * @return outcomes[tournament][game] = starting bracket index of the team that won the game
+     */
+    public int[][] sampleOutcomes(int n) {
+        return sampleOutcomes(n, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Same as {@link #sampleOutcomes(int)}, always giving the same outcomes for the same seed.
+     * @param n number of tournaments
+     * @param seed seed of the random stream
+     * @return outcomes[tournament][game] = starting bracket index of the team that won the game
+     */
+    public int[][] sampleOutcomes(int n, long seed) {
+        SplittableRandom rng = new SplittableRandom(seed);
+        int[][] outcomes = new int[n][];
+        int[] tree = new int[NUM_OF_NODES];
+        for (int t = 0; t < NUM_OF_TEAMS; t++) {
+            tree[NUM_OF_GAMES + t] = t;
+        }
+        for (int k = 0; k < n; k++) {
+            playTournament(tree, rng);
+            outcomes[k] = Arrays.copyOf(tree, NUM_OF_GAMES);
+        }
+        return outcomes;
+    }
+}
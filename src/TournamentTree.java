@@ -0,0 +1,142 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Picks or results for a tournament of any size, play-in games included, over a shared
+ * {@link BracketLayout}. Nodes hold team numbers, 0 to {@link BracketLayout#getEntrants()} - 1 in draw
+ * order, or {@link #EMPTY}. Unlike {@link Bracket} it isn't tied to 64 teams and byte sized ids, and
+ * every loop here walks the layout's arrays game by game, so simulating or scoring costs the same per
+ * game whether the tournament has 64 teams or 1024.
+ */
+public class TournamentTree {
+    /** Node with no team picked yet */
+    public static final int EMPTY = -1;
+
+    private final BracketLayout layout;
+    private final int[] nodes;
+
+    /**
+     * Starts a tree with every team at its starting node and no games decided.
+     * @param layout shape of the tournament
+     */
+    public TournamentTree(BracketLayout layout) {
+        this.layout = layout;
+        nodes = new int[layout.getNodes()];
+        Arrays.fill(nodes, EMPTY);
+        int[] starting = layout.startingNodes();
+        for (int e = 0; e < starting.length; e++) {
+            nodes[starting[e]] = e;
+        }
+    }
+
+    /**
+     * @param other tree to copy
+     */
+    public TournamentTree(TournamentTree other) {
+        layout = other.layout;
+        nodes = other.nodes.clone();
+    }
+
+    /**
+     * @return the shape of this tree
+     */
+    public BracketLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * @param node index in the tree
+     * @return team number at the node, or {@link #EMPTY}
+     */
+    public int get(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Moves a team up to the game above it.
+     * @param node the node the team is at
+     */
+    public void moveTeamUp(int node) {
+        nodes[layout.parentOf(node)] = nodes[node];
+    }
+
+    /**
+     * Clears every game at and below a node, leaving the starting teams in place.
+     * @param root any node
+     */
+    public void resetSubtree(int root) {
+        int[] games = layout.games();
+        for (int i = 0; i < games.length; i++) {
+            if (isBelow(games[i], root)) {
+                nodes[games[i]] = EMPTY;
+            }
+        }
+    }
+
+    /**
+     * Takes a team out of a game and every game above it that it was picked to win.
+     * @param node the first game the team no longer wins
+     */
+    public void removeAbove(int node) {
+        int team = nodes[node];
+        for (; node >= 0 && nodes[node] == team; node = layout.parentOf(node)) {
+            nodes[node] = EMPTY;
+        }
+    }
+
+    /**
+     * @return true if every game has a winner
+     */
+    public boolean isComplete() {
+        for (int game : layout.games()) {
+            if (nodes[game] == EMPTY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decides every game still open from both teams, children first.
+     * @param winProbability chance that team a beats team b at [a * entrants + b]
+     * @param rng source of the draws
+     */
+    public void simulate(double[] winProbability, SplittableRandom rng) {
+        int entrants = layout.getEntrants();
+        int[] games = layout.games();
+        int[] left = layout.leftChildren();
+        int[] right = layout.rightChildren();
+        for (int i = 0; i < games.length; i++) {
+            if (nodes[games[i]] == EMPTY) {
+                int a = nodes[left[i]];
+                int b = nodes[right[i]];
+                nodes[games[i]] = rng.nextDouble() < winProbability[a * entrants + b] ? a : b;
+            }
+        }
+    }
+
+    /**
+     * Scores these picks against the results with the layout's round weights.
+     * @param master the true results, of the same layout
+     * @return points for every correct pick
+     */
+    public int score(TournamentTree master) {
+        int[] games = layout.games();
+        int[] points = layout.points();
+        int[] truth = master.nodes;
+        int score = 0;
+        for (int i = 0; i < games.length; i++) {
+            if (nodes[games[i]] == truth[games[i]] && truth[games[i]] != EMPTY) {
+                score += points[i];
+            }
+        }
+        return score;
+    }
+
+    private boolean isBelow(int node, int root) {
+        while (node > root) {
+            node = layout.parentOf(node);
+        }
+        return node == root;
+    }
+}